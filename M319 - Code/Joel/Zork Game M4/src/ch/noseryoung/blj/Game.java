@@ -3,29 +3,82 @@ package ch.noseryoung.blj;
 import ch.noseryoung.blj.core.*;
 import ch.noseryoung.blj.items.*;
 import ch.noseryoung.blj.exceptions.*;
+import ch.noseryoung.blj.leaderboard.*;
+import ch.noseryoung.blj.rules.*;
 import ch.noseryoung.blj.setup.*;
+import ch.noseryoung.blj.telemetry.*;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Game {
     // Clean Code: Constants instead of magic numbers
-    private static final int REQUIRED_KEYCARDS = 3;
     private static final int PLAYER_STARTING_HEALTH = 100;
+    private static final int MAX_UNDO_STEPS = 100;
+    private static final RuleBase RULES = RuleBook.createRules();
+    private static final AtomicLong NEXT_SESSION_ID = new AtomicLong(1);
 
+    private final long sessionId = NEXT_SESSION_ID.getAndIncrement();
+    private final Scanner input;
+    private final PrintStream output;
     private Player player;
+    private String verb = "";
+    // Room the current command started in, all events of one command report it
+    private Room commandRoom;
     private boolean gameRunning;
-    private boolean powerFixed = false;
-    private boolean hasFlashlight = false;
-    private int keycardsFound = 0;
+    private final RuleSession rules = new RuleSession(RULES, this);
+    private final RenderCache renderCache;
+    private final GameHistory history = new GameHistory(MAX_UNDO_STEPS);
+    private final RoomChangeLog changes = new RoomChangeLog();
+    private final WorldCatalog worlds = WorldCatalog.shared();
+    private WorldVersion world;
+    private WorldVersion declinedWorld;
+    private boolean leftWorld;
+    private Room[] rooms;
+    private final long startTime = System.currentTimeMillis();
+    private final Set<Room> visitedRooms = new HashSet<>();
+    private int commandCount;
+    private Leaderboard leaderboard;
 
     public Game() {
+        this(new Scanner(System.in), System.out, consoleCharset());
+    }
+
+    // Room output is written as cached bytes, they have to be encoded with the stream's charset
+    public Game(Scanner input, PrintStream output, Charset outputCharset) {
+        this.input = input;
+        this.output = output;
+        this.renderCache = RenderCache.forCharset(outputCharset);
         setupGame();
         gameRunning = true;
     }
 
+    // System.out encodes with stdout.encoding where the platform sets it, else with the default charset
+    private static Charset consoleCharset() {
+        String encoding = System.getProperty("stdout.encoding", System.getProperty("sun.stdout.encoding"));
+        try {
+            return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return Charset.defaultCharset();
+        }
+    }
+
     private void setupGame() {
-        Room[] rooms = WorldBuilder.createWorld();
-        ItemPopulator.populateWorld(rooms);
+        // The catalog validated the version once, sessions only copy its rooms
+        world = worlds.acquireCurrent();
+        rooms = world.createRooms();
+        for (Room room : rooms) {
+            room.setChangeLog(changes);
+        }
         this.player = new Player("Player", rooms[0], PLAYER_STARTING_HEALTH);
+        commandRoom = rooms[0];
+        visitedRooms.add(rooms[0]);
+        rules.setSymbol(RuleBook.ROOM, rooms[0].getName());
     }
 
     public void startGame() {
@@ -36,22 +89,215 @@ public class Game {
     }
 
     private void processInput() {
-        Scanner scanner = new Scanner(System.in);
-        System.out.print("\n> ");
-        String input = scanner.nextLine();
-        processCommand(input);
+        output.print("\n> ");
+        processCommand(input.nextLine());
     }
 
     private void showCurrentRoom() {
-        System.out.println(player.getCurrentRoom().getDescription());
+        RenderEvent renderEvent = new RenderEvent();
+        renderEvent.begin();
+        byte[] description = renderCache.getDescription(player.getCurrentRoom());
+        output.write(description, 0, description.length);
+        renderEvent.finish(sessionId, verb, commandRoom);
     }
 
-    private void processCommand(String input) {
+    public void processCommand(String input) {
+        followWorldReload();
+        commandRoom = player.getCurrentRoom();
+        ParseEvent parseEvent = new ParseEvent();
+        parseEvent.begin();
         String[] words = input.toLowerCase().trim().split(" ");
         if (words.length == 0) return;
 
         String command = words[0];
+        verb = command;
+        if (!command.isEmpty()) {
+            commandCount++;
+        }
+        parseEvent.finish(sessionId, verb, commandRoom);
+
+        ExecuteEvent executeEvent = new ExecuteEvent();
+        executeEvent.begin();
+        switch (command) {
+            case "undo":
+                undo();
+                break;
+            case "redo":
+                redo();
+                break;
+            default:
+                executeAndRecord(command, words);
+        }
+        executeEvent.finish(sessionId, verb, commandRoom);
+    }
+
+    // A reload only swaps the catalog's reference. API sessions get a task to move over right
+    // after the reload; here a session that hasn't moved yet does so before its next command.
+    public void followWorldReload() {
+        WorldVersion latest = worlds.current();
+        if (latest != world && latest != declinedWorld && !migrate(latest)) {
+            declinedWorld = latest;
+        }
+    }
+
+    // The session is over: its version can be closed once the catalog has replaced it
+    public void leaveWorld() {
+        if (!leftWorld) {
+            leftWorld = true;
+            world.release();
+        }
+    }
+
+    // Moves the session to another world version. Rooms the session never changed take the new
+    // version as is; in changed rooms the session's changes are applied on top of the new version.
+    // Fails when the current room, a changed room or an item the session holds is gone.
+    // Walks and copies the whole world once, like starting a session does; API sessions do it
+    // in a task of their own right after the reload, so no command has to wait for it.
+    public boolean migrate(WorldVersion next) {
+        // A closed version was replaced again already, the session follows the newer one instead
+        if (leftWorld || !worlds.acquire(next)) {
+            return false;
+        }
+        if (!moveTo(next)) {
+            next.release();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean moveTo(WorldVersion next) {
+        if (next.findRoom(player.getCurrentRoom().getName()) < 0
+                || !containsAll(next, player.getInventory().getItemState())) {
+            return false;
+        }
+        List<Integer> changedRooms = new ArrayList<>();
+        for (int i = 0; i < rooms.length; i++) {
+            Room room = rooms[i];
+            if (room.getItemState().equals(world.getItemState(i)) && room.getHiddenState().equals(world.getHiddenState(i))) {
+                continue;
+            }
+            if (next.findRoom(room.getName()) < 0 || !containsAdded(next, world.getItemState(i), room.getItemState())) {
+                return false;
+            }
+            changedRooms.add(i);
+        }
+
+        Room[] nextRooms = next.createRooms();
+        // Items the player holds or put elsewhere must not stay where the new version puts them.
+        // Only their home rooms are touched, the merge below adds them back where the session put them.
+        ItemSet moved = player.getInventory().getItemState();
+        for (int i : changedRooms) {
+            moved = union(moved, added(world.getItemState(i), rooms[i].getItemState()));
+        }
+        for (int id = moved.nextId(0); id >= 0; id = moved.nextId(id + 1)) {
+            int home = next.findItemRoom(id);
+            if (home >= 0) {
+                Room room = nextRooms[home];
+                room.restoreState(room.getItemState().without(id), room.getHiddenState().without(id));
+            }
+        }
+        for (int i : changedRooms) {
+            Room room = rooms[i];
+            Room target = nextRooms[next.findRoom(room.getName())];
+            ItemSet items = merge(world.getItemState(i), room.getItemState(), target.getItemState());
+            ItemSet hidden = merge(world.getHiddenState(i), room.getHiddenState(), target.getHiddenState());
+            for (int id = hidden.nextId(0); id >= 0; id = hidden.nextId(id + 1)) {
+                if (!items.contains(id)) {
+                    hidden = hidden.without(id);
+                }
+            }
+            target.restoreState(items, hidden);
+        }
+        Set<Room> visited = new HashSet<>();
+        for (Room room : visitedRooms) {
+            int index = next.findRoom(room.getName());
+            if (index >= 0) {
+                visited.add(nextRooms[index]);
+            }
+        }
+        visitedRooms.clear();
+        visitedRooms.addAll(visited);
+        player.setCurrentRoom(nextRooms[next.findRoom(player.getCurrentRoom().getName())]);
+        // The snapshots point at the old rooms
+        history.clear();
+        world.release();
+        world = next;
+        rooms = nextRooms;
+        for (Room room : rooms) {
+            room.setChangeLog(changes);
+        }
+        return true;
+    }
+
+    private static boolean containsAll(WorldVersion version, ItemSet items) {
+        for (int id = items.nextId(0); id >= 0; id = items.nextId(id + 1)) {
+            if (!version.containsItem(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Items the session put into a room must exist in the new version
+    private static boolean containsAdded(WorldVersion version, ItemSet initial, ItemSet current) {
+        for (int id = current.nextId(0); id >= 0; id = current.nextId(id + 1)) {
+            if (!initial.contains(id) && !version.containsItem(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ItemSet added(ItemSet initial, ItemSet current) {
+        ItemSet result = ItemSet.EMPTY;
+        for (int id = current.nextId(0); id >= 0; id = current.nextId(id + 1)) {
+            if (!initial.contains(id)) {
+                result = result.with(id);
+            }
+        }
+        return result;
+    }
 
+    private static ItemSet union(ItemSet first, ItemSet second) {
+        ItemSet result = first;
+        for (int id = second.nextId(0); id >= 0; id = second.nextId(id + 1)) {
+            result = result.with(id);
+        }
+        return result;
+    }
+
+    // Applies what changed from initial to current on top of target
+    private static ItemSet merge(ItemSet initial, ItemSet current, ItemSet target) {
+        ItemSet result = target;
+        for (int id = current.nextId(0); id >= 0; id = current.nextId(id + 1)) {
+            if (!initial.contains(id)) {
+                result = result.with(id);
+            }
+        }
+        for (int id = initial.nextId(0); id >= 0; id = initial.nextId(id + 1)) {
+            if (!current.contains(id)) {
+                result = result.without(id);
+            }
+        }
+        return result;
+    }
+
+    private void executeAndRecord(String command, String[] words) {
+        Room roomBefore = player.getCurrentRoom();
+        ItemSet inventoryBefore = player.getInventory().getItemState();
+        int[] factsBefore = rules.getFacts();
+        changes.clear();
+        executeCommand(command, words);
+        // Item sets and facts are copied on write, so comparing references is enough to detect a change
+        if (roomBefore != player.getCurrentRoom()
+                || inventoryBefore != player.getInventory().getItemState()
+                || factsBefore != rules.getFacts()
+                || !changes.isEmpty()) {
+            history.record(new GameSnapshot(roomBefore, inventoryBefore, factsBefore, changes));
+        }
+    }
+
+    private void executeCommand(String command, String[] words) {
         switch (command) {
             case "quit": case "exit":
                 quitGame();
@@ -72,7 +318,7 @@ public class Game {
                 handleExamineCommand(words);
                 break;
             case "inventory": case "inv": case "i":
-                player.getInventory().showInventory();
+                showInventory();
                 break;
             case "take":
                 handleTakeCommand(words);
@@ -84,18 +330,18 @@ public class Game {
                 showHelpMenu();
                 break;
             default:
-                System.out.println("Invalid input");
+                output.println("Invalid input");
         }
     }
 
     private void quitGame() {
         gameRunning = false;
-        System.out.println("Turning off...");
+        output.println("Turning off...");
     }
 
     private void handleGoCommand(String[] words) {
         if (words.length < 2) {
-            System.out.println("Give the direction");
+            output.println("Give the direction");
         } else {
             movePlayer(words[1]);
         }
@@ -103,7 +349,7 @@ public class Game {
 
     private void handleExamineCommand(String[] words) {
         if (words.length < 2) {
-            System.out.println("Which object?");
+            output.println("Which object?");
         } else {
             examineItem(words[1]);
         }
@@ -111,7 +357,7 @@ public class Game {
 
     private void handleTakeCommand(String[] words) {
         if (words.length < 2) {
-            System.out.println("Which object?");
+            output.println("Which object?");
         } else {
             takeItem(words[1]);
         }
@@ -119,38 +365,77 @@ public class Game {
 
     private void handleUseCommand(String[] words) {
         if (words.length < 2) {
-            System.out.println("Which item?");
+            output.println("Which item?");
         } else {
             useItem(words[1]);
         }
     }
 
     private void showHelpMenu() {
-        System.out.println("=== AVAILABLE COMMANDS ===");
-        System.out.println("Movement:");
-        System.out.println("  go north (n) - Move north");
-        System.out.println("  go south (s) - Move south");
-        System.out.println("  go east (e)  - Move east");
-        System.out.println("  go west (w)  - Move west");
-        System.out.println("Actions:");
-        System.out.println("  look         - Look around");
-        System.out.println("  take [item]  - Pick up item");
-        System.out.println("  examine [item] - Inspect item");
-        System.out.println("  inventory (i)  - Show inventory");
-        System.out.println("  use [item]     - Use item");
-        System.out.println("  quit/exit      - Exit game");
+        output.println("=== AVAILABLE COMMANDS ===");
+        output.println("Movement:");
+        output.println("  go north (n) - Move north");
+        output.println("  go south (s) - Move south");
+        output.println("  go east (e)  - Move east");
+        output.println("  go west (w)  - Move west");
+        output.println("Actions:");
+        output.println("  look         - Look around");
+        output.println("  take [item]  - Pick up item");
+        output.println("  examine [item] - Inspect item");
+        output.println("  inventory (i)  - Show inventory");
+        output.println("  use [item]     - Use item");
+        output.println("  undo / redo    - Take back or repeat the last action");
+        output.println("  quit/exit      - Exit game");
+    }
+
+    private GameSnapshot captureState(Room[] changedRooms) {
+        return new GameSnapshot(player, changedRooms, rules.getFacts());
+    }
+
+    private void restoreState(GameSnapshot snapshot) {
+        snapshot.restoreTo(player);
+        rules.restoreFacts(snapshot.getFacts());
+    }
+
+    private void undo() {
+        if (!history.canUndo()) {
+            output.println("Nothing to undo.");
+            return;
+        }
+        GameSnapshot previous = history.popUndo();
+        history.pushRedo(captureState(previous.getRooms()));
+        restoreState(previous);
+        output.println("You retrace your steps...");
+        showCurrentRoom();
+    }
+
+    private void redo() {
+        if (!history.canRedo()) {
+            output.println("Nothing to redo.");
+            return;
+        }
+        GameSnapshot next = history.popRedo();
+        history.pushUndo(captureState(next.getRooms()));
+        restoreState(next);
+        output.println("You repeat what you did...");
+        showCurrentRoom();
     }
 
     private void movePlayer(String direction) {
         try {
+            ResolveEvent resolveEvent = new ResolveEvent();
+            resolveEvent.begin();
             Room nextRoom = getNextRoom(direction);
+            resolveEvent.finish(sessionId, verb, commandRoom);
             if (nextRoom == null) {
                 throw new InvalidDirectionException(direction);
             }
             player.setCurrentRoom(nextRoom);
+            visitedRooms.add(nextRoom);
+            rules.setSymbol(RuleBook.ROOM, nextRoom.getName());
             showCurrentRoom();
         } catch (InvalidDirectionException e) {
-            System.out.println(e.getMessage());
+            output.println(e.getMessage());
         }
     }
 
@@ -168,126 +453,161 @@ public class Game {
     private void takeItem(String itemName) {
         try {
             Room room = player.getCurrentRoom();
-            Item item = room.getItemByName(itemName);
+            Item item = resolveRoomItem(itemName);
 
             if (item == null) throw new ItemNotFoundException(itemName);
             if (!item.canBeTaken()) {
-                System.out.println("You can't take the " + item.getName() + ".");
+                output.println("You can't take the " + item.getName() + ".");
                 return;
             }
 
             if (player.addItemToInventory(item)) {
                 room.removeItem(item);
-                System.out.println("You take the " + item.getName() + ".");
+                output.println("You take the " + item.getName() + ".");
             }
         } catch (ItemNotFoundException | InventoryFullException e) {
-            System.out.println(e.getMessage());
+            output.println(e.getMessage());
         }
     }
 
     private void examineItem(String itemName) {
         try {
-            Item item = player.getCurrentRoom().getItemByName(itemName);
+            Item item = resolveRoomItem(itemName);
             if (item == null) throw new ItemNotFoundException(itemName);
 
-            System.out.println(item.getDescription());
+            output.println(item.getDescription());
 
             if (item.canBeTaken()) {
                 offerToTakeItem(item);
             }
         } catch (ItemNotFoundException e) {
-            System.out.println(e.getMessage());
+            output.println(e.getMessage());
         }
     }
 
     private void offerToTakeItem(Item item) {
-        System.out.print("Do you want to take it? (y/n): ");
-        Scanner scanner = new Scanner(System.in);
-        String answer = scanner.nextLine().toLowerCase();
+        output.print("Do you want to take it? (y/n): ");
+        // Without more input (for example in the HTTP API) the offer is declined
+        if (!input.hasNextLine()) {
+            output.println();
+            return;
+        }
+        String answer = input.nextLine().toLowerCase();
 
         if (answer.equals("y") || answer.equals("yes")) {
             try {
                 if (player.addItemToInventory(item)) {
                     player.getCurrentRoom().removeItem(item);
-                    System.out.println("You take the " + item.getName() + ".");
+                    output.println("You take the " + item.getName() + ".");
                 }
             } catch (InventoryFullException e) {
-                System.out.println(e.getMessage());
+                output.println(e.getMessage());
             }
         }
     }
 
-    private void showItemsInRoom() {
-        System.out.println("You see:");
-        boolean foundItems = false;
+    private Item resolveRoomItem(String itemName) {
+        ResolveEvent resolveEvent = new ResolveEvent();
+        resolveEvent.begin();
+        Item item = player.getCurrentRoom().getItemByName(itemName);
+        resolveEvent.finish(sessionId, verb, commandRoom);
+        return item;
+    }
 
-        for (Item item : player.getCurrentRoom().getItems()) {
-            if (!item.isHidden() || hasFlashlight) {
-                System.out.println("> " + item.getName());
-                foundItems = true;
-            }
-        }
+    private void showInventory() {
+        RenderEvent renderEvent = new RenderEvent();
+        renderEvent.begin();
+        player.getInventory().showInventory(output);
+        renderEvent.finish(sessionId, verb, commandRoom);
+    }
 
-        if (!foundItems) {
-            System.out.println("Nothing of interest in the dim light.");
-        }
+    private void showItemsInRoom() {
+        RenderEvent renderEvent = new RenderEvent();
+        renderEvent.begin();
+        byte[] listing = renderCache.getItemListing(player.getCurrentRoom(), hasFlashlight());
+        output.write(listing, 0, listing.length);
+        renderEvent.finish(sessionId, verb, commandRoom);
     }
 
     private void useItem(String itemName) {
-        if (!player.hasItem(itemName)) {
-            System.out.println("You don't have a " + itemName + ".");
+        ResolveEvent resolveEvent = new ResolveEvent();
+        resolveEvent.begin();
+        Item item = player.getInventory().findItem(itemName);
+        resolveEvent.finish(sessionId, verb, commandRoom);
+
+        if (item == null) {
+            output.println("You don't have a " + itemName + ".");
             return;
         }
 
-        Item item = findItemInInventory(itemName);
-        if (item == null) return;
-
         // Polymorphism: different items behave differently
         if (item instanceof Usable) {
             try {
                 ((Usable) item).use(player, player.getCurrentRoom(), this);
             } catch (ItemNotUsableException e) {
-                System.out.println(e.getMessage());
+                output.println(e.getMessage());
             }
         } else {
-            System.out.println("You can't use the " + itemName + ".");
+            output.println("You can't use the " + itemName + ".");
         }
     }
 
-    private Item findItemInInventory(String itemName) {
-        for (Item item : player.getInventory().getItems()) {
-            if (item.getName().equalsIgnoreCase(itemName)) {
-                return item;
-            }
+    // Helper methods for rule actions
+    public long getSessionId() { return sessionId; }
+    public PrintStream getOutput() { return output; }
+    public boolean isRunning() { return gameRunning; }
+    public Player getPlayer() { return player; }
+    public RuleSession getRules() { return rules; }
+    public WorldVersion getWorld() { return world; }
+    public boolean hasFlashlight() { return rules.isTrue(RuleBook.FLASHLIGHT); }
+    public void setHasFlashlight(boolean value) { rules.set(RuleBook.FLASHLIGHT, value); }
+    public boolean isPowerFixed() { return rules.isTrue(RuleBook.POWER_FIXED); }
+    public void setPowerFixed(boolean value) { rules.set(RuleBook.POWER_FIXED, value); }
+    public int getKeycardsFound() { return rules.get(RuleBook.KEYCARDS); }
+    public void incrementKeycardsFound() { rules.set(RuleBook.KEYCARDS, getKeycardsFound() + 1); }
+    public void endGame() { gameRunning = false; }
+    public void setLeaderboard(Leaderboard leaderboard) { this.leaderboard = leaderboard; }
+
+    // A run is recorded once, the escape rule fires again for every keycard inserted afterwards
+    public void escape() {
+        if (!gameRunning) {
+            return;
         }
-        return null;
-    }
-
-    // Helper methods for item behavior
-    public boolean hasFlashlight() { return hasFlashlight; }
-    public void setHasFlashlight(boolean value) { this.hasFlashlight = value; }
-    public boolean isPowerFixed() { return powerFixed; }
-    public void setPowerFixed(boolean value) { this.powerFixed = value; }
-    public void incrementKeycardsFound() { this.keycardsFound++; }
-
-    public void checkExitConditions() {
-        if (keycardsFound >= REQUIRED_KEYCARDS && powerFixed) {
-            System.out.println("All keycards inserted and power restored!");
-            System.out.println("The exit door opens...");
-            System.out.println("\n=== CONGRATULATIONS! YOU ESCAPED! ===");
-            gameRunning = false;
-        } else if (keycardsFound >= REQUIRED_KEYCARDS) {
-            System.out.println("All keycards inserted, but power is missing.");
+        endGame();
+        if (leaderboard == null) {
+            return;
+        }
+        long duration = System.currentTimeMillis() - startTime;
+        EscapeRun run = new EscapeRun(player.getName(), commandCount, visitedRooms.size(), duration, System.currentTimeMillis());
+        showMessage(String.format("Your time: %d seconds with %d commands in %d rooms.", duration / 1000, commandCount, visitedRooms.size()));
+        if (leaderboard.getRunCount() == 0) {
+            showMessage("You are the first to escape!");
         } else {
-            System.out.println("Progress: " + keycardsFound + "/" + REQUIRED_KEYCARDS + " keycards.");
+            showMessage(String.format("You were faster than %.0f%% of all escapes.", leaderboard.getPercentileRank(duration)));
         }
+        // Not written here: the game may run on a scheduler worker that other sessions share.
+        // The output belongs to this thread, so a failed write can only be logged.
+        String playerName = player.getName();
+        leaderboard.recordLater(run).whenComplete((ignored, error) -> {
+            if (error != null) {
+                System.err.println("The run of " + playerName + " could not be saved: " + error.getMessage());
+            }
+        });
+    }
+
+    // Output of rule actions, recorded as Render like the rest of the output
+    public void showMessage(String message) {
+        RenderEvent renderEvent = new RenderEvent();
+        renderEvent.begin();
+        output.println(message);
+        renderEvent.finish(sessionId, verb, commandRoom);
     }
 
     public void revealHiddenItems(Room room) {
         for (Item item : room.getItems()) {
-            if (item.isHidden()) {
-                item.setHidden(false);
-                System.out.println("You found a hidden " + item.getName() + "!");
+            if (room.isHidden(item)) {
+                room.setHidden(item, false);
+                showMessage("You found a hidden " + item.getName() + "!");
             }
         }
     }
@@ -1,15 +1,58 @@
 package ch.noseryoung.blj;
 
+import ch.noseryoung.blj.leaderboard.EscapeRun;
+import ch.noseryoung.blj.leaderboard.Leaderboard;
+import java.io.IOException;
+import java.nio.file.Path;
+
 public class Main {
+    private static final Path LEADERBOARD_FILE = Path.of("leaderboard.dat");
+    private static final int LEADERBOARD_SIZE = 5;
+
     public static void main(String[] args) {
         System.out.println("======== SPIEL STARTET ========");
         System.out.println("You don't know what kind of place this is.\nThe only thing you know is that it's not safe here.\nFind a way out of here");
         System.out.println("Tip: Use help for showing the commands");
         System.out.println("===============================\n");
 
+        Leaderboard leaderboard = openLeaderboard();
         Game game = new Game();
+        if (args.length > 0) {
+            game.getPlayer().setName(args[0]);
+        }
+        game.setLeaderboard(leaderboard);
         game.startGame();
 
         System.out.println("======== SPIEL BEENDET ========");
+        if (leaderboard != null) {
+            showLeaderboard(leaderboard);
+        }
+    }
+
+    // The game is still playable when the leaderboard file can't be opened
+    private static Leaderboard openLeaderboard() {
+        try {
+            return Leaderboard.open(LEADERBOARD_FILE);
+        } catch (IOException e) {
+            System.out.println("Leaderboard not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void showLeaderboard(Leaderboard leaderboard) {
+        // Closing waits for the run of this game to be saved
+        try {
+            leaderboard.close();
+        } catch (IOException e) {
+            System.out.println("Leaderboard could not be closed: " + e.getMessage());
+        }
+        int place = 1;
+        for (EscapeRun run : leaderboard.getTop(LEADERBOARD_SIZE)) {
+            if (place == 1) {
+                System.out.println("Best escapes:");
+            }
+            System.out.printf("%d. %s - %d seconds, %d commands, %d rooms%n",
+                    place++, run.getPlayerName(), run.getDurationMillis() / 1000, run.getCommands(), run.getRoomsVisited());
+        }
     }
 }
\ No newline at end of file
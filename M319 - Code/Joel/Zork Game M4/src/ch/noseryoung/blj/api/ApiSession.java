@@ -0,0 +1,90 @@
+package ch.noseryoung.blj.api;
+
+import ch.noseryoung.blj.Game;
+import ch.noseryoung.blj.items.Item;
+import ch.noseryoung.blj.leaderboard.Leaderboard;
+import ch.noseryoung.blj.scheduler.ScheduledSession;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+// One player of the HTTP API. Game is not thread-safe: the HttpApi runs every call
+// on the session's worker in the SessionScheduler, never from the request thread.
+public class ApiSession {
+    private final String token;
+    private final ScheduledSession scheduledSession;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final Game game;
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    public ApiSession(String token, String playerName, Leaderboard leaderboard, ScheduledSession scheduledSession) {
+        this.token = token;
+        this.scheduledSession = scheduledSession;
+        // No console input: questions like "Do you want to take it?" are answered with no
+        this.game = new Game(new Scanner(""), new PrintStream(buffer, true, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        if (playerName != null && !playerName.isBlank()) {
+            game.getPlayer().setName(playerName.trim());
+        }
+        game.setLeaderboard(leaderboard);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public ScheduledSession getScheduledSession() {
+        return scheduledSession;
+    }
+
+    public void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    public String execute(String command) {
+        buffer.reset();
+        game.processCommand(command);
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    public void followWorldReload() {
+        game.followWorldReload();
+    }
+
+    // Lets an old world version close once this was its last session
+    public void close() {
+        game.leaveWorld();
+    }
+
+    public boolean isRunning() {
+        return game.isRunning();
+    }
+
+    public String getRoomName() {
+        return game.getPlayer().getCurrentRoom().getName();
+    }
+
+    public int getWorldVersion() {
+        return game.getWorld().getNumber();
+    }
+
+    public RoomPayload getRoom(RoomPayloadCache cache) {
+        return cache.get(game.getPlayer().getCurrentRoom(), game.hasFlashlight());
+    }
+
+    public String getInventoryJson() {
+        List<String> names = new ArrayList<>();
+        for (Item item : game.getPlayer().getInventory().getItems()) {
+            names.add(item.getName());
+        }
+        return "{\"items\":" + Json.array(names)
+                + ",\"size\":" + names.size()
+                + ",\"capacity\":" + game.getPlayer().getInventory().getMaxCapacity() + "}";
+    }
+}
\ No newline at end of file
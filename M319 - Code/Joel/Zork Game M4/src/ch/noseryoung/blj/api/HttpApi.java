@@ -0,0 +1,454 @@
+package ch.noseryoung.blj.api;
+
+import ch.noseryoung.blj.core.RenderCache;
+import ch.noseryoung.blj.exceptions.WorldLoadException;
+import ch.noseryoung.blj.leaderboard.EscapeRun;
+import ch.noseryoung.blj.leaderboard.Leaderboard;
+import ch.noseryoung.blj.scheduler.SessionScheduler;
+import ch.noseryoung.blj.setup.WorldCatalog;
+import ch.noseryoung.blj.setup.WorldSource;
+import ch.noseryoung.blj.setup.WorldVersion;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// HTTP/JSON API on the JDK's built-in server. Request threads only parse and answer,
+// the games run on the workers of a SessionScheduler. Clients identify their game with a session token:
+//   POST   /sessions?name={player}     -> {"token": ...}
+//   POST   /sessions/{token}/commands  -> body is one command, returns the game output; 410 once the game is over
+//   GET    /sessions/{token}/room      -> current room and visible items, supports If-None-Match
+//   GET    /sessions/{token}/inventory -> items in the inventory
+//   DELETE /sessions/{token}           -> ends the session, idle sessions end on their own
+//   GET    /stats                      -> cache hit and miss counts
+//   GET    /leaderboard?top={count}    -> fastest escapes
+//   GET    /world                      -> current world version
+//   POST   /world                      -> reloads the world, running sessions follow if their rooms and items still exist;
+//                                         needs "Authorization: Bearer {admin token}", the token is printed at startup
+public class HttpApi {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int TOKEN_BYTES = 16;
+    private static final int DEFAULT_TOP_COUNT = 10;
+    private static final int MAX_TOP_COUNT = 1000;
+    private static final Path LEADERBOARD_FILE = Path.of("leaderboard.dat");
+    // Every session holds its own copy of the world
+    private static final int MAX_SESSIONS = 10_000;
+    private static final long SESSION_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long EXPIRY_INTERVAL_SECONDS = 60;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, ApiSession> sessions = new ConcurrentHashMap<>();
+    // Slots are reserved before a session is created, so concurrent POSTs can't overshoot the limit
+    private final AtomicInteger sessionSlots = new AtomicInteger();
+    private final RoomPayloadCache roomCache = new RoomPayloadCache();
+    private final SessionScheduler scheduler = new SessionScheduler();
+    private final ScheduledExecutorService expiry;
+    private final SecureRandom random = new SecureRandom();
+    // A reload runs code from the world directory, only whoever started the server may trigger it
+    private final String adminToken;
+    private final Leaderboard leaderboard;
+    private volatile WorldSource worldSource = WorldSource.BUILT_IN;
+
+    public HttpApi(int port) throws IOException {
+        this(port, null);
+    }
+
+    public HttpApi(int port, Leaderboard leaderboard) throws IOException {
+        this.leaderboard = leaderboard;
+        String configuredToken = System.getProperty("zork.adminToken");
+        this.adminToken = configuredToken == null || configuredToken.isBlank() ? newToken() : configuredToken;
+        // Small JSON responses otherwise wait for delayed ACKs (Nagle), read once when the first server starts
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = createExecutor();
+        server.setExecutor(executor);
+        server.createContext("/sessions", this::handle);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/leaderboard", this::handleLeaderboard);
+        server.createContext("/world", this::handleWorld);
+        expiry = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "zork-session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiry.scheduleWithFixedDelay(this::expireIdleSessions,
+                EXPIRY_INTERVAL_SECONDS, EXPIRY_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Usage: HttpApi [port] [worldClassDirectory worldClassName]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        HttpApi api = new HttpApi(port, Leaderboard.open(LEADERBOARD_FILE));
+        if (args.length > 2) {
+            api.setWorldSource(WorldSource.fromClasses(Path.of(args[1]), args[2]));
+        }
+        api.start();
+        System.out.println("Zork API listening on http://localhost:" + api.getPort() + "/sessions");
+        System.out.println("Admin token for POST /world: " + api.getAdminToken());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        expiry.shutdownNow();
+        scheduler.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Source used by POST /world
+    public void setWorldSource(WorldSource worldSource) {
+        this.worldSource = worldSource;
+    }
+
+    public String getAdminToken() {
+        return adminToken;
+    }
+
+    // Virtual threads need Java 21, older runtimes fall back to a cached thread pool
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            // API sessions write UTF-8
+            RenderCache renderCache = RenderCache.forCharset(StandardCharsets.UTF_8);
+            sendJson(exchange, 200, "{\"sessions\":" + sessions.size()
+                    + ",\"descriptionHits\":" + renderCache.getDescriptionHitCount()
+                    + ",\"descriptionMisses\":" + renderCache.getDescriptionMissCount()
+                    + ",\"listingHits\":" + renderCache.getListingHitCount()
+                    + ",\"listingMisses\":" + renderCache.getListingMissCount()
+                    + ",\"renderHitRate\":" + renderCache.getHitRate()
+                    + ",\"roomPayloads\":" + roomCache.size()
+                    + ",\"workers\":" + scheduler.getWorkerCount()
+                    + ",\"sessionMoves\":" + scheduler.getMoveCount() + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleLeaderboard(HttpExchange exchange) throws IOException {
+        try {
+            if (leaderboard == null) {
+                sendError(exchange, 404, "No leaderboard on this server");
+                return;
+            }
+            String top = queryParameter(exchange, "top");
+            int count = DEFAULT_TOP_COUNT;
+            try {
+                if (top != null) {
+                    count = Math.max(0, Math.min(MAX_TOP_COUNT, Integer.parseInt(top)));
+                }
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "top must be a number");
+                return;
+            }
+            List<EscapeRun> runs = leaderboard.getTop(count);
+            StringBuilder json = new StringBuilder("{\"runs\":").append(leaderboard.getRunCount()).append(",\"top\":[");
+            for (int i = 0; i < runs.size(); i++) {
+                EscapeRun run = runs.get(i);
+                json.append(i > 0 ? "," : "")
+                        .append("{\"player\":").append(Json.quote(run.getPlayerName()))
+                        .append(",\"millis\":").append(run.getDurationMillis())
+                        .append(",\"commands\":").append(run.getCommands())
+                        .append(",\"rooms\":").append(run.getRoomsVisited()).append('}');
+            }
+            sendJson(exchange, 200, json.append("]}").toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleWorld(HttpExchange exchange) throws IOException {
+        try {
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    sendJson(exchange, 200, worldJson(WorldCatalog.shared().current()));
+                    break;
+                case "POST":
+                    if (!isAdmin(exchange)) {
+                        exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                        sendError(exchange, 401, "Reloading the world needs the admin token");
+                        break;
+                    }
+                    try {
+                        WorldVersion next = WorldCatalog.shared().reload(worldSource);
+                        migrateSessions();
+                        sendJson(exchange, 200, worldJson(next));
+                    } catch (WorldLoadException e) {
+                        sendError(exchange, 422, e.getMessage());
+                    }
+                    break;
+                default:
+                    sendError(exchange, 405, "Use GET or POST");
+            }
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Every session moves over in a task of its own, the copy isn't paid by its next command
+    private void migrateSessions() {
+        for (ApiSession session : sessions.values()) {
+            scheduler.submit(session.getScheduledSession(), () -> {
+                session.followWorldReload();
+                return null;
+            });
+        }
+    }
+
+    private boolean isAdmin(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        // Constant time, the response time doesn't tell how much of the token was right
+        byte[] given = authorization.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(given, adminToken.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String worldJson(WorldVersion world) {
+        return "{\"version\":" + world.getNumber() + ",\"rooms\":" + world.getRoomCount() + "}";
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        // "/sessions/{token}/{action}" splits into "", "sessions", token, action
+        String[] parts = exchange.getRequestURI().getPath().split("/");
+        String method = exchange.getRequestMethod();
+
+        if (parts.length < 2 || !parts[1].equals("sessions")) {
+            sendError(exchange, 404, "Unknown endpoint");
+            return;
+        }
+        if (parts.length == 2) {
+            if (method.equals("POST")) {
+                createSession(exchange);
+            } else {
+                sendError(exchange, 405, "Use POST to create a session");
+            }
+            return;
+        }
+
+        ApiSession session = parts.length >= 3 ? sessions.get(parts[2]) : null;
+        if (session == null) {
+            sendError(exchange, 404, "Unknown session");
+            return;
+        }
+
+        session.touch();
+        String action = parts.length == 4 ? parts[3] : "";
+        switch (method + " " + action) {
+            case "DELETE ":
+                removeSession(session);
+                send(exchange, 204, null, null);
+                break;
+            case "POST commands":
+                executeCommand(exchange, session);
+                break;
+            case "GET room":
+                sendRoom(exchange, session);
+                break;
+            case "GET inventory":
+                sendJson(exchange, 200, scheduler.call(session.getScheduledSession(), session::getInventoryJson));
+                break;
+            default:
+                sendError(exchange, 404, "Unknown endpoint");
+        }
+    }
+
+    private void createSession(HttpExchange exchange) throws IOException {
+        if (!reserveSessionSlot()) {
+            expireIdleSessions();
+            if (!reserveSessionSlot()) {
+                sendError(exchange, 503, "Too many sessions, try again later");
+                return;
+            }
+        }
+        String token = newToken();
+        String name = queryParameter(exchange, "name");
+        try {
+            sessions.put(token, new ApiSession(token, name, leaderboard, scheduler.register()));
+        } catch (RuntimeException e) {
+            sessionSlots.decrementAndGet();
+            throw e;
+        }
+        sendJson(exchange, 201, "{\"token\":" + Json.quote(token) + "}");
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private boolean reserveSessionSlot() {
+        while (true) {
+            int used = sessionSlots.get();
+            if (used >= MAX_SESSIONS) {
+                return false;
+            }
+            if (sessionSlots.compareAndSet(used, used + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void executeCommand(HttpExchange exchange, ApiSession session) throws IOException {
+        String command = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (command.isEmpty()) {
+            sendError(exchange, 400, "The request body must contain a command");
+            return;
+        }
+        // One task for the command and the state it reports, the worker is only visited once
+        String json = scheduler.call(session.getScheduledSession(), () -> {
+            if (!session.isRunning()) {
+                return null;
+            }
+            String output = session.execute(command);
+            return "{\"output\":" + Json.quote(output)
+                    + ",\"room\":" + Json.quote(session.getRoomName())
+                    + ",\"world\":" + session.getWorldVersion()
+                    + ",\"running\":" + session.isRunning() + "}";
+        });
+        if (json == null) {
+            sendError(exchange, 410, "The game is over, start a new session");
+            return;
+        }
+        sendJson(exchange, 200, json);
+    }
+
+    private void expireIdleSessions() {
+        long idleSince = System.currentTimeMillis() - SESSION_IDLE_MILLIS;
+        for (ApiSession session : sessions.values()) {
+            if (session.getLastAccess() < idleSince) {
+                removeSession(session);
+            }
+        }
+    }
+
+    private void removeSession(ApiSession session) {
+        if (sessions.remove(session.getToken(), session)) {
+            sessionSlots.decrementAndGet();
+            // Queued behind the session's last tasks, the game is only touched on its worker
+            scheduler.submit(session.getScheduledSession(), () -> {
+                session.close();
+                return null;
+            });
+            scheduler.unregister(session.getScheduledSession());
+        }
+    }
+
+    private void sendRoom(HttpExchange exchange, ApiSession session) throws IOException {
+        RoomPayload payload = scheduler.call(session.getScheduledSession(), () -> session.getRoom(roomCache));
+        if (matchesEtag(exchange.getRequestHeaders().get("If-None-Match"), payload.getEtag())) {
+            send(exchange, 304, null, payload.getEtag());
+        } else {
+            send(exchange, 200, payload.getBody(), payload.getEtag());
+        }
+    }
+
+    // If-None-Match holds "*" or a list of entity tags, compared weakly: W/"x" matches "x"
+    private static boolean matchesEtag(List<String> headers, String etag) {
+        if (headers == null) {
+            return false;
+        }
+        String opaqueTag = stripWeak(etag);
+        for (String header : headers) {
+            // Our tags never contain commas, so splitting the list can't cut one in half
+            for (String candidate : header.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || stripWeak(tag).equals(opaqueTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                return URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, "{\"error\":" + Json.quote(message) + "}");
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        send(exchange, status, json.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body, String etag) throws IOException {
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        }
+        if (body == null) {
+            // Responses without body finish immediately, an unread request would close the connection
+            exchange.getRequestBody().close();
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package ch.noseryoung.blj.api;
+
+import java.util.List;
+
+// Minimal JSON writing, the API only returns objects of strings, numbers and string lists
+public class Json {
+
+    private Json() {
+    }
+
+    public static String quote(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2);
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    public static String array(List<String> values) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(quote(values.get(i)));
+        }
+        return json.append(']').toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,149 @@
+package ch.noseryoung.blj.api;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Local load test for the HTTP API. Every client plays its own session in a loop and
+// re-validates the room with If-None-Match after each command.
+// Usage: LoadGenerator [baseUrl] [clients] [seconds]; without a base URL an API is started on a free port
+public class LoadGenerator {
+    private static final String[] SCRIPT = {"look", "n", "take flashlight", "use flashlight", "e", "look", "w", "s", "undo", "redo"};
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+    private static final int MAX_SAMPLES_PER_CLIENT = 1_000_000;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final String baseUrl;
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public LoadGenerator(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        HttpApi localApi = null;
+        String baseUrl;
+        if (args.length > 0 && !args[0].equals("local")) {
+            baseUrl = args[0];
+        } else {
+            localApi = new HttpApi(0);
+            localApi.start();
+            baseUrl = "http://localhost:" + localApi.getPort();
+        }
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        try {
+            new LoadGenerator(baseUrl).run(clients, seconds);
+        } finally {
+            if (localApi != null) {
+                localApi.stop();
+            }
+        }
+    }
+
+    public void run(int clients, int seconds) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Future<?>[] results = new Future<?>[clients];
+        long[][] latencies = new long[clients][];
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            results[i] = pool.submit(() -> {
+                latencies[client] = play(deadline);
+                return null;
+            });
+        }
+        try {
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        report(latencies, seconds);
+    }
+
+    // Returns the latency of every request in nanoseconds
+    private long[] play(long deadline) throws Exception {
+        long[] samples = new long[1024];
+        int count = 0;
+        String token = createSession();
+        String etag = null;
+        int step = 0;
+
+        while (System.nanoTime() < deadline && count + 2 <= MAX_SAMPLES_PER_CLIENT) {
+            if (count + 2 > samples.length) {
+                samples = Arrays.copyOf(samples, samples.length * 2);
+            }
+            long start = System.nanoTime();
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/sessions/" + token + "/commands"))
+                    .POST(HttpRequest.BodyPublishers.ofString(SCRIPT[step++ % SCRIPT.length])).build());
+            samples[count++] = System.nanoTime() - start;
+            if (response.body().contains("\"running\":false")) {
+                deleteSession(token);
+                token = createSession();
+            }
+
+            start = System.nanoTime();
+            HttpRequest.Builder room = HttpRequest.newBuilder(URI.create(baseUrl + "/sessions/" + token + "/room")).GET();
+            if (etag != null) {
+                room.header("If-None-Match", etag);
+            }
+            response = send(room.build());
+            samples[count++] = System.nanoTime() - start;
+            if (response.statusCode() == 304) {
+                notModified.incrementAndGet();
+            }
+            etag = response.headers().firstValue("ETag").orElse(null);
+        }
+        deleteSession(token);
+        return Arrays.copyOf(samples, count);
+    }
+
+    private String createSession() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/sessions"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("No session token in response: " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private void deleteSession(String token) throws Exception {
+        send(HttpRequest.newBuilder(URI.create(baseUrl + "/sessions/" + token)).DELETE().build());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            errors.incrementAndGet();
+        }
+        return response;
+    }
+
+    private void report(long[][] latencies, int seconds) {
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            System.out.println("No requests completed.");
+            return;
+        }
+        System.out.printf("Requests:      %d (%.0f/s)%n", all.length, all.length / (double) seconds);
+        System.out.printf("Latency p50:   %.2f ms%n", all[all.length / 2] / 1e6);
+        System.out.printf("Latency p99:   %.2f ms%n", all[(int) (all.length * 0.99)] / 1e6);
+        System.out.printf("Latency max:   %.2f ms%n", all[all.length - 1] / 1e6);
+        System.out.printf("304 responses: %d%n", notModified.get());
+        System.out.printf("Errors:        %d%n", errors.get());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package ch.noseryoung.blj.api;
+
+import ch.noseryoung.blj.core.Room;
+import ch.noseryoung.blj.items.Item;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Serialized JSON of a room as a player sees it, with an ETag derived from the bytes
+public class RoomPayload {
+    private final byte[] body;
+    private final String etag;
+
+    private RoomPayload(byte[] body) {
+        this.body = body;
+        CRC32 checksum = new CRC32();
+        checksum.update(body);
+        this.etag = "\"" + Long.toHexString(checksum.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+    }
+
+    public static RoomPayload render(Room room, boolean lit) {
+        String json = "{\"name\":" + Json.quote(room.getName())
+                + ",\"description\":" + Json.quote(room.getDescription())
+                + ",\"exits\":" + Json.array(getExits(room))
+                + ",\"items\":" + Json.array(getVisibleItems(room, lit))
+                + "}";
+        return new RoomPayload(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    private static List<String> getExits(Room room) {
+        List<String> exits = new ArrayList<>();
+        if (room.getNorthRoom() != null) exits.add("north");
+        if (room.getSouthRoom() != null) exits.add("south");
+        if (room.getEastRoom() != null) exits.add("east");
+        if (room.getWestRoom() != null) exits.add("west");
+        return exits;
+    }
+
+    private static List<String> getVisibleItems(Room room, boolean lit) {
+        List<String> names = new ArrayList<>();
+        for (Item item : room.getItems()) {
+            if (lit || !room.isHidden(item)) {
+                names.add(item.getName());
+            }
+        }
+        return names;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package ch.noseryoung.blj.api;
+
+import ch.noseryoung.blj.core.BoundedCache;
+import ch.noseryoung.blj.core.ItemSet;
+import ch.noseryoung.blj.core.Room;
+import java.util.Objects;
+
+// Room payloads shared by all sessions. The key holds everything the payload is built from,
+// including the room's immutable item sets, so an entry is only replaced when the item state changes.
+public class RoomPayloadCache {
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final BoundedCache<PayloadKey, RoomPayload> payloads = new BoundedCache<>(MAX_ENTRIES);
+
+    public RoomPayload get(Room room, boolean lit) {
+        PayloadKey key = new PayloadKey(room, lit);
+        RoomPayload payload = payloads.get(key);
+        if (payload == null) {
+            payload = RoomPayload.render(room, lit);
+            payloads.put(key, payload);
+        }
+        return payload;
+    }
+
+    public int size() {
+        return payloads.size();
+    }
+
+    private static final class PayloadKey {
+        private final String name;
+        private final String description;
+        private final int exits;
+        private final ItemSet items;
+        private final ItemSet hiddenItems;
+
+        PayloadKey(Room room, boolean lit) {
+            this.name = room.getName();
+            this.description = room.getDescription();
+            this.exits = (room.getNorthRoom() != null ? 1 : 0) | (room.getSouthRoom() != null ? 2 : 0)
+                    | (room.getEastRoom() != null ? 4 : 0) | (room.getWestRoom() != null ? 8 : 0);
+            this.items = room.getItemState();
+            // With light every item is visible, so the hidden flags don't change the payload
+            this.hiddenItems = lit ? null : room.getHiddenState();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PayloadKey)) {
+                return false;
+            }
+            PayloadKey that = (PayloadKey) other;
+            return exits == that.exits
+                    && name.equals(that.name)
+                    && description.equals(that.description)
+                    && items.equals(that.items)
+                    && Objects.equals(hiddenItems, that.hiddenItems);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, exits, items, hiddenItems);
+        }
+    }
+}
\ No newline at end of file
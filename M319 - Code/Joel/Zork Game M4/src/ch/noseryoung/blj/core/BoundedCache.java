@@ -0,0 +1,78 @@
+package ch.noseryoung.blj.core;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Concurrent cache with a size bound. A full cache gives every entry a second chance:
+// entries not read since the last sweep are dropped, so hot entries survive an eviction.
+public class BoundedCache<K, V> {
+    private final int maxEntries;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    public BoundedCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        // Only written when it changes, hits on hot entries don't share a dirty cache line
+        if (!entry.used) {
+            entry.used = true;
+        }
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // One thread sweeps, the others keep adding; the bound is approximate under contention
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<Entry<V>> sweep = entries.values().iterator();
+            while (sweep.hasNext()) {
+                Entry<V> entry = sweep.next();
+                if (entry.used) {
+                    entry.used = false;
+                } else {
+                    sweep.remove();
+                }
+            }
+            // Every entry was in use, drop a quarter of them so the next puts have room
+            int target = maxEntries - maxEntries / 4;
+            Iterator<Entry<V>> overflow = entries.values().iterator();
+            while (entries.size() > target && overflow.hasNext()) {
+                overflow.next();
+                overflow.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        // New entries count as used, so they survive at least one sweep
+        private volatile boolean used = true;
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+}
\ No newline at end of file
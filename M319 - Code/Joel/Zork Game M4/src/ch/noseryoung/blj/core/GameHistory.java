@@ -0,0 +1,57 @@
+package ch.noseryoung.blj.core;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Bounded undo/redo stacks of snapshots, every operation is O(1)
+public class GameHistory {
+    private final int maxSize;
+    private final Deque<GameSnapshot> undoStack = new ArrayDeque<>();
+    private final Deque<GameSnapshot> redoStack = new ArrayDeque<>();
+
+    public GameHistory(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    // A new command makes the redo history invalid
+    public void record(GameSnapshot snapshot) {
+        pushBounded(undoStack, snapshot);
+        redoStack.clear();
+    }
+
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    public GameSnapshot popUndo() {
+        return undoStack.pop();
+    }
+
+    public GameSnapshot popRedo() {
+        return redoStack.pop();
+    }
+
+    public void pushUndo(GameSnapshot snapshot) {
+        pushBounded(undoStack, snapshot);
+    }
+
+    public void pushRedo(GameSnapshot snapshot) {
+        pushBounded(redoStack, snapshot);
+    }
+
+    public void clear() {
+        undoStack.clear();
+        redoStack.clear();
+    }
+
+    private void pushBounded(Deque<GameSnapshot> stack, GameSnapshot snapshot) {
+        stack.push(snapshot);
+        if (stack.size() > maxSize) {
+            stack.removeLast();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package ch.noseryoung.blj.core;
+
+// Memento Pattern: the session state before one command. Only the rooms the command
+// changed are stored, all item sets are shared with the live game, not copied.
+public class GameSnapshot {
+    private final Room currentRoom;
+    private final ItemSet inventoryItems;
+    private final int[] facts;
+    private final Room[] rooms;
+    private final ItemSet[] roomItems;
+    private final ItemSet[] hiddenItems;
+
+    // The state of the player and the given rooms as it is now
+    public GameSnapshot(Player player, Room[] rooms, int[] facts) {
+        this.currentRoom = player.getCurrentRoom();
+        this.inventoryItems = player.getInventory().getItemState();
+        this.facts = facts;
+        this.rooms = rooms;
+        this.roomItems = new ItemSet[rooms.length];
+        this.hiddenItems = new ItemSet[rooms.length];
+        for (int i = 0; i < rooms.length; i++) {
+            roomItems[i] = rooms[i].getItemState();
+            hiddenItems[i] = rooms[i].getHiddenState();
+        }
+    }
+
+    // The state before a command: the player's state from before and the rooms from the change log
+    public GameSnapshot(Room currentRoom, ItemSet inventoryItems, int[] facts, RoomChangeLog changes) {
+        this.currentRoom = currentRoom;
+        this.inventoryItems = inventoryItems;
+        this.facts = facts;
+        this.rooms = changes.getRooms();
+        this.roomItems = changes.getItemStates();
+        this.hiddenItems = changes.getHiddenStates();
+    }
+
+    public void restoreTo(Player player) {
+        player.setCurrentRoom(currentRoom);
+        player.getInventory().restoreItemState(inventoryItems);
+        for (int i = 0; i < rooms.length; i++) {
+            rooms[i].restoreState(roomItems[i], hiddenItems[i]);
+        }
+    }
+
+    public Room[] getRooms() {
+        return rooms;
+    }
+
+    public int[] getFacts() {
+        return facts;
+    }
+}
\ No newline at end of file
@@ -1,52 +1,63 @@
 package ch.noseryoung.blj.core;
 
 import ch.noseryoung.blj.items.Item;
+import ch.noseryoung.blj.items.ItemRegistry;
 import ch.noseryoung.blj.exceptions.InventoryFullException;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
-// Generic container for items with capacity limit
-public class Inventory<T> {
-    private List<T> items;
-    private int maxCapacity;
+// Container for items with capacity limit, stored as an immutable set of ItemRegistry ids
+public class Inventory {
+    private ItemSet items;
+    private final int maxCapacity;
 
     public Inventory(int maxCapacity) {
         this.maxCapacity = maxCapacity;
-        this.items = new ArrayList<>();
+        this.items = ItemSet.EMPTY;
     }
 
-    public boolean addItem(T item) throws InventoryFullException {
+    public boolean addItem(Item item) throws InventoryFullException {
         if (items.size() >= maxCapacity) {
             throw new InventoryFullException();
         }
-        items.add(item);
+        items = items.with(item.getId());
         return true;
     }
 
-    public boolean removeItem(T item) {
-        return items.remove(item);
+    public boolean removeItem(Item item) {
+        if (!items.contains(item.getId())) {
+            return false;
+        }
+        items = items.without(item.getId());
+        return true;
+    }
+
+    public boolean containsItem(Item item) {
+        return items.contains(item.getId());
     }
 
     public boolean hasItem(String itemName) {
-        for (T item : items) {
-            if (item instanceof Item) {
-                if (((Item) item).getName().equalsIgnoreCase(itemName)) {
-                    return true;
-                }
+        return findItem(itemName) != null;
+    }
+
+    public Item findItem(String itemName) {
+        for (int id = items.nextId(0); id >= 0; id = items.nextId(id + 1)) {
+            Item item = ItemRegistry.get(id);
+            if (item.getName().equalsIgnoreCase(itemName)) {
+                return item;
             }
         }
-        return false;
+        return null;
     }
 
-    public void showInventory() {
+    public void showInventory(PrintStream output) {
         if (items.isEmpty()) {
-            System.out.println("Your inventory is empty.");
+            output.println("Your inventory is empty.");
         } else {
-            System.out.println("Inventory:");
-            for (T item : items) {
-                if (item instanceof Item) {
-                    System.out.println("- " + ((Item) item).getName());
-                }
+            output.println("Inventory:");
+            for (Item item : getItems()) {
+                output.println("- " + item.getName());
             }
         }
     }
@@ -59,7 +70,19 @@ public class Inventory<T> {
         return maxCapacity;
     }
 
-    public List<T> getItems() {
-        return new ArrayList<>(items);
+    public List<Item> getItems() {
+        List<Item> result = new ArrayList<>(items.size());
+        for (int id = items.nextId(0); id >= 0; id = items.nextId(id + 1)) {
+            result.add(ItemRegistry.get(id));
+        }
+        return result;
+    }
+
+    public ItemSet getItemState() {
+        return items;
+    }
+
+    public void restoreItemState(ItemSet items) {
+        this.items = items;
     }
 }
\ No newline at end of file
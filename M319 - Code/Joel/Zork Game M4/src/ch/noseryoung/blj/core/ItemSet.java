@@ -0,0 +1,126 @@
+package ch.noseryoung.blj.core;
+
+import java.util.Arrays;
+
+// Immutable sparse bitset of item ids: changes return a new set and leave the old one untouched,
+// so unchanged sets can be shared between snapshots instead of being copied.
+// Only the non-empty 64-bit words are stored, sorted by word index, so a change costs
+// the number of words in use and not the size of the highest id in the registry.
+public final class ItemSet {
+    public static final ItemSet EMPTY = new ItemSet(new int[0], new long[0], 0);
+
+    // wordIndexes[i] is id / 64 of the ids stored in words[i]; no word is ever 0
+    private final int[] wordIndexes;
+    private final long[] words;
+    private final int size;
+    // Sets are cache keys, computed once with the copy instead of on every lookup
+    private final int hash;
+
+    private ItemSet(int[] wordIndexes, long[] words, int size) {
+        this.wordIndexes = wordIndexes;
+        this.words = words;
+        this.size = size;
+        this.hash = 31 * Arrays.hashCode(wordIndexes) + Arrays.hashCode(words);
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int slot = Arrays.binarySearch(wordIndexes, id >>> 6);
+        return slot >= 0 && (words[slot] & (1L << id)) != 0;
+    }
+
+    public ItemSet with(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Item without id: " + id);
+        }
+        int slot = Arrays.binarySearch(wordIndexes, id >>> 6);
+        if (slot >= 0) {
+            if ((words[slot] & (1L << id)) != 0) {
+                return this;
+            }
+            // Same word indexes, only the changed word differs
+            long[] copy = words.clone();
+            copy[slot] |= 1L << id;
+            return new ItemSet(wordIndexes, copy, size + 1);
+        }
+        int insert = -slot - 1;
+        int[] indexes = new int[wordIndexes.length + 1];
+        long[] copy = new long[words.length + 1];
+        System.arraycopy(wordIndexes, 0, indexes, 0, insert);
+        System.arraycopy(words, 0, copy, 0, insert);
+        indexes[insert] = id >>> 6;
+        copy[insert] = 1L << id;
+        System.arraycopy(wordIndexes, insert, indexes, insert + 1, wordIndexes.length - insert);
+        System.arraycopy(words, insert, copy, insert + 1, words.length - insert);
+        return new ItemSet(indexes, copy, size + 1);
+    }
+
+    public ItemSet without(int id) {
+        if (!contains(id)) {
+            return this;
+        }
+        int slot = Arrays.binarySearch(wordIndexes, id >>> 6);
+        long word = words[slot] & ~(1L << id);
+        if (word != 0) {
+            long[] copy = words.clone();
+            copy[slot] = word;
+            return new ItemSet(wordIndexes, copy, size - 1);
+        }
+        int[] indexes = new int[wordIndexes.length - 1];
+        long[] copy = new long[words.length - 1];
+        System.arraycopy(wordIndexes, 0, indexes, 0, slot);
+        System.arraycopy(words, 0, copy, 0, slot);
+        System.arraycopy(wordIndexes, slot + 1, indexes, slot, indexes.length - slot);
+        System.arraycopy(words, slot + 1, copy, slot, copy.length - slot);
+        return new ItemSet(indexes, copy, size - 1);
+    }
+
+    // Returns the smallest id >= fromId in this set, or -1 if there is none
+    public int nextId(int fromId) {
+        fromId = Math.max(fromId, 0);
+        int slot = Arrays.binarySearch(wordIndexes, fromId >>> 6);
+        if (slot >= 0) {
+            long bits = words[slot] & (-1L << fromId);
+            if (bits != 0) {
+                return wordIndexes[slot] * 64 + Long.numberOfTrailingZeros(bits);
+            }
+            slot++;
+        } else {
+            slot = -slot - 1;
+        }
+        if (slot == words.length) {
+            return -1;
+        }
+        return wordIndexes[slot] * 64 + Long.numberOfTrailingZeros(words[slot]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Empty words are never stored, so equal sets always have equal arrays
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ItemSet)) {
+            return false;
+        }
+        ItemSet that = (ItemSet) other;
+        return size == that.size
+                && Arrays.equals(wordIndexes, that.wordIndexes)
+                && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
\ No newline at end of file
@@ -9,13 +9,13 @@ public class Player {
     private String name;
     private Room currentRoom;
     private int health;
-    private Inventory<Item> inventory;
+    private Inventory inventory;
 
     public Player(String name, Room currentRoom, int health) {
         this.name = name;
         this.currentRoom = currentRoom;
         this.health = health;
-        this.inventory = new Inventory<>(DEFAULT_INVENTORY_SIZE);
+        this.inventory = new Inventory(DEFAULT_INVENTORY_SIZE);
     }
 
     public String getName() {
@@ -42,7 +42,7 @@ public class Player {
         this.health = health;
     }
 
-    public Inventory<Item> getInventory() {
+    public Inventory getInventory() {
         return inventory;
     }
 
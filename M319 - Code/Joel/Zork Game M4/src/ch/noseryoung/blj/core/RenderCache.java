@@ -0,0 +1,144 @@
+package ch.noseryoung.blj.core;
+
+import ch.noseryoung.blj.items.Item;
+import ch.noseryoung.blj.items.ItemRegistry;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Encoded console output for rooms, shared by all sessions that write with the same charset.
+// Descriptions are keyed by their text, item listings by the room's immutable item sets,
+// so every session's copy of a room with the same items gets the same bytes. The last
+// listing is also kept on the room and reused until the room's version changes.
+public class RenderCache {
+    private static final int MAX_ENTRIES = 10_000;
+    private static final String NEWLINE = System.lineSeparator();
+    private static final Map<Charset, RenderCache> CACHES = new ConcurrentHashMap<>();
+
+    private final Charset charset;
+    private final BoundedCache<String, byte[]> descriptions = new BoundedCache<>(MAX_ENTRIES);
+    private final BoundedCache<ListingKey, byte[]> listings = new BoundedCache<>(MAX_ENTRIES);
+    private final LongAdder descriptionHits = new LongAdder();
+    private final LongAdder descriptionMisses = new LongAdder();
+    private final LongAdder listingHits = new LongAdder();
+    private final LongAdder listingMisses = new LongAdder();
+
+    private RenderCache(Charset charset) {
+        this.charset = charset;
+    }
+
+    // The bytes must match the charset of the stream they are written to
+    public static RenderCache forCharset(Charset charset) {
+        return CACHES.computeIfAbsent(charset, RenderCache::new);
+    }
+
+    public byte[] getDescription(Room room) {
+        byte[] bytes = descriptions.get(room.getDescription());
+        if (bytes != null) {
+            descriptionHits.increment();
+            return bytes;
+        }
+        descriptionMisses.increment();
+        bytes = (room.getDescription() + NEWLINE).getBytes(charset);
+        descriptions.put(room.getDescription(), bytes);
+        return bytes;
+    }
+
+    public byte[] getItemListing(Room room, boolean lit) {
+        RoomRender render = room.render;
+        if (render == null || render.cache != this || render.version != room.getVersion()) {
+            render = new RoomRender(this, room.getVersion());
+            room.render = render;
+        }
+        byte[] bytes = lit ? render.litListing : render.darkListing;
+        if (bytes != null) {
+            listingHits.increment();
+            return bytes;
+        }
+        bytes = getSharedListing(new ListingKey(room.getItemState(), lit ? null : room.getHiddenState()));
+        if (lit) {
+            render.litListing = bytes;
+        } else {
+            render.darkListing = bytes;
+        }
+        return bytes;
+    }
+
+    public long getDescriptionHitCount() {
+        return descriptionHits.sum();
+    }
+
+    public long getDescriptionMissCount() {
+        return descriptionMisses.sum();
+    }
+
+    public long getListingHitCount() {
+        return listingHits.sum();
+    }
+
+    public long getListingMissCount() {
+        return listingMisses.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = descriptionHits.sum() + listingHits.sum();
+        long total = hitCount + descriptionMisses.sum() + listingMisses.sum();
+        return total == 0 ? 0 : hitCount / (double) total;
+    }
+
+    // Another session's copy of the room may already have rendered the same item sets
+    private byte[] getSharedListing(ListingKey key) {
+        byte[] bytes = listings.get(key);
+        if (bytes != null) {
+            listingHits.increment();
+            return bytes;
+        }
+        listingMisses.increment();
+        bytes = renderListing(key);
+        listings.put(key, bytes);
+        return bytes;
+    }
+
+    private byte[] renderListing(ListingKey key) {
+        StringBuilder text = new StringBuilder("You see:").append(NEWLINE);
+        boolean foundItems = false;
+        for (int id = key.items.nextId(0); id >= 0; id = key.items.nextId(id + 1)) {
+            if (key.hiddenItems == null || !key.hiddenItems.contains(id)) {
+                Item item = ItemRegistry.get(id);
+                text.append("> ").append(item.getName()).append(NEWLINE);
+                foundItems = true;
+            }
+        }
+        if (!foundItems) {
+            text.append("Nothing of interest in the dim light.").append(NEWLINE);
+        }
+        return text.toString().getBytes(charset);
+    }
+
+    private static final class ListingKey {
+        private final ItemSet items;
+        // With light every item is visible, so the hidden flags don't change the listing
+        private final ItemSet hiddenItems;
+
+        ListingKey(ItemSet items, ItemSet hiddenItems) {
+            this.items = items;
+            this.hiddenItems = hiddenItems;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ListingKey)) {
+                return false;
+            }
+            ListingKey that = (ListingKey) other;
+            return items.equals(that.items) && Objects.equals(hiddenItems, that.hiddenItems);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(items, hiddenItems);
+        }
+    }
+}
\ No newline at end of file
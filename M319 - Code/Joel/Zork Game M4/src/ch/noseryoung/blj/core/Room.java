@@ -1,7 +1,9 @@
 package ch.noseryoung.blj.core;
 
 import ch.noseryoung.blj.items.Item;
+import ch.noseryoung.blj.items.ItemRegistry;
 import java.util.ArrayList;
+import java.util.List;
 
 public class Room {
     private String name;
@@ -10,7 +12,16 @@ public class Room {
     private Room southRoom;
     private Room eastRoom;
     private Room westRoom;
-    private ArrayList<Item> items;
+    // Room contents and hidden flags as immutable sets of ItemRegistry ids,
+    // every change replaces the set so old versions stay valid for undo
+    private ItemSet items;
+    private ItemSet hiddenItems;
+    // Told about every change, so undo knows which rooms a command touched
+    private RoomChangeLog changeLog;
+    int loggedGeneration;
+    // Bumped on every item change, so a cached listing only has to compare one number
+    private int version;
+    RoomRender render;
 
     public Room(String name, String description, Room northRoom, Room southRoom, Room eastRoom, Room westRoom) {
         this.name = name;
@@ -19,7 +30,8 @@ public class Room {
         this.southRoom = southRoom;
         this.eastRoom = eastRoom;
         this.westRoom = westRoom;
-        this.items = new ArrayList<>();
+        this.items = ItemSet.EMPTY;
+        this.hiddenItems = ItemSet.EMPTY;
     }
 
     public String getName() {
@@ -71,15 +83,35 @@ public class Room {
     }
 
     public void addItem(Item item) {
-        items.add(item);
+        setState(items.with(item.getId()), hiddenItems);
     }
 
     public boolean removeItem(Item item) {
-        return items.remove(item);
+        int id = item.getId();
+        if (!items.contains(id)) {
+            return false;
+        }
+        setState(items.without(id), hiddenItems.without(id));
+        return true;
+    }
+
+    public boolean containsItem(Item item) {
+        return items.contains(item.getId());
+    }
+
+    public boolean isHidden(Item item) {
+        return hiddenItems.contains(item.getId());
+    }
+
+    public void setHidden(Item item, boolean hidden) {
+        if (containsItem(item)) {
+            setState(items, hidden ? hiddenItems.with(item.getId()) : hiddenItems.without(item.getId()));
+        }
     }
 
     public Item getItemByName(String itemName) {
-        for (Item item : items) {
+        for (int id = items.nextId(0); id >= 0; id = items.nextId(id + 1)) {
+            Item item = ItemRegistry.get(id);
             if (item.getName().equalsIgnoreCase(itemName)) {
                 return item;
             }
@@ -87,11 +119,47 @@ public class Room {
         return null;
     }
 
-    public ArrayList<Item> getItems() {
-        return items;
+    public List<Item> getItems() {
+        List<Item> result = new ArrayList<>(items.size());
+        for (int id = items.nextId(0); id >= 0; id = items.nextId(id + 1)) {
+            result.add(ItemRegistry.get(id));
+        }
+        return result;
     }
 
     public boolean hasItem(String itemName) {
         return getItemByName(itemName) != null;
     }
+
+    public ItemSet getItemState() {
+        return items;
+    }
+
+    public ItemSet getHiddenState() {
+        return hiddenItems;
+    }
+
+    public void restoreState(ItemSet items, ItemSet hiddenItems) {
+        setState(items, hiddenItems);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setChangeLog(RoomChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    private void setState(ItemSet items, ItemSet hiddenItems) {
+        if (items == this.items && hiddenItems == this.hiddenItems) {
+            return;
+        }
+        if (changeLog != null) {
+            changeLog.record(this, this.items, this.hiddenItems);
+        }
+        this.items = items;
+        this.hiddenItems = hiddenItems;
+        version++;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package ch.noseryoung.blj.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Rooms changed since the last clear(), each with the item state it had before its first change.
+// Rooms report themselves, so a command may change any room and undo still restores it.
+public class RoomChangeLog {
+    private final List<Room> rooms = new ArrayList<>();
+    private final List<ItemSet> items = new ArrayList<>();
+    private final List<ItemSet> hiddenItems = new ArrayList<>();
+    // Rooms remember the generation they were logged in, so clear() doesn't have to visit them
+    private int generation = 1;
+
+    void record(Room room, ItemSet roomItems, ItemSet roomHiddenItems) {
+        if (room.loggedGeneration == generation) {
+            return;
+        }
+        room.loggedGeneration = generation;
+        rooms.add(room);
+        items.add(roomItems);
+        hiddenItems.add(roomHiddenItems);
+    }
+
+    public void clear() {
+        rooms.clear();
+        items.clear();
+        hiddenItems.clear();
+        generation++;
+    }
+
+    public boolean isEmpty() {
+        return rooms.isEmpty();
+    }
+
+    Room[] getRooms() {
+        return rooms.toArray(new Room[0]);
+    }
+
+    ItemSet[] getItemStates() {
+        return items.toArray(new ItemSet[0]);
+    }
+
+    ItemSet[] getHiddenStates() {
+        return hiddenItems.toArray(new ItemSet[0]);
+    }
+}
\ No newline at end of file
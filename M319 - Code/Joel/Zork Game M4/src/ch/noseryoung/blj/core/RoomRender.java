@@ -0,0 +1,14 @@
+package ch.noseryoung.blj.core;
+
+// Item listings of one room version, kept on the room so repeated looks skip the shared map
+class RoomRender {
+    final RenderCache cache;
+    final int version;
+    byte[] darkListing;
+    byte[] litListing;
+
+    RoomRender(RenderCache cache, int version) {
+        this.cache = cache;
+        this.version = version;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package ch.noseryoung.blj.exceptions;
+
+public class WorldLoadException extends Exception {
+    public WorldLoadException(String reason) {
+        super("The world can't be loaded: " + reason);
+    }
+}
\ No newline at end of file
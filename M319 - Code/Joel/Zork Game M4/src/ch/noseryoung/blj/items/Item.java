@@ -1,46 +1,42 @@
 package ch.noseryoung.blj.items;
 
+// Immutable item definition, shared between all rooms and inventories through the ItemRegistry.
+// Only the ItemFactory creates items, so every item that reaches a room has an id.
 public abstract class Item {
-    private String name;
-    private String description;
-    private boolean canBeTaken;
-    private boolean isHidden = false;
+    private final String name;
+    private final String description;
+    private final boolean canBeTaken;
+    private int id = -1;
 
 
-    public Item(String name, String description, boolean canBeTaken) {
+    Item(String name, String description, boolean canBeTaken) {
         this.name = name;
         this.description = description;
         this.canBeTaken = canBeTaken;
     }
 
-    public String getName() {
-        return name;
+    public int getId() {
+        return id;
     }
 
-    public String getDescription() {
-        return description;
+    void setId(int id) {
+        this.id = id;
     }
 
-    public void setName(String newName) {
-        this.name = newName;
+    public String getName() {
+        return name;
     }
 
-    public void setDescription(String newDescription) {
-        this.description = newDescription;
+    public String getDescription() {
+        return description;
     }
 
     public boolean canBeTaken() {
         return canBeTaken;
     }
 
-    public void setCanBeTaken(boolean canBeTaken) {
-        this.canBeTaken = canBeTaken;
-    }
-
-    public boolean isHidden() {
-        return isHidden;
-    }
-    public void setHidden(boolean hidden) {
-        this.isHidden = hidden;
+    // Two items with the same key are the same definition and share one id
+    String getDefinitionKey() {
+        return getClass().getSimpleName() + '\0' + name + '\0' + description + '\0' + canBeTaken;
     }
 }
\ No newline at end of file
@@ -1,13 +1,13 @@
 package ch.noseryoung.blj.items;
 
-// Factory Pattern: centralizes item creation
+// Factory Pattern: centralizes item creation, items are shared flyweights from the ItemRegistry
 public class ItemFactory {
 
     public static Item createUsableItem(String name, String description, String usageContext) {
-        return new UsableItem(name, description, usageContext);
+        return ItemRegistry.intern(new UsableItem(name, description, usageContext));
     }
 
     public static Item createSceneryItem(String name, String description) {
-        return new SceneryItem(name, description);
+        return ItemRegistry.intern(new SceneryItem(name, description));
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package ch.noseryoung.blj.items;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Flyweight registry: every item definition is stored once and gets a dense int id
+public class ItemRegistry {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final Map<String, Item> itemsByDefinition = new HashMap<>();
+    private static volatile Item[] itemsById = new Item[INITIAL_CAPACITY];
+    private static volatile int itemCount = 0;
+
+    private ItemRegistry() {
+    }
+
+    // Returns the shared instance for this definition, registering it on first use
+    public static synchronized Item intern(Item item) {
+        String key = item.getDefinitionKey();
+        Item existing = itemsByDefinition.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        int id = itemCount;
+        if (id == itemsById.length) {
+            itemsById = Arrays.copyOf(itemsById, id * 2);
+        }
+        item.setId(id);
+        itemsById[id] = item;
+        itemsByDefinition.put(key, item);
+        itemCount = id + 1;
+        return item;
+    }
+
+    public static Item get(int id) {
+        if (id < 0 || id >= itemCount) {
+            throw new IllegalArgumentException("Unknown item id: " + id);
+        }
+        return itemsById[id];
+    }
+
+    public static int size() {
+        return itemCount;
+    }
+}
\ No newline at end of file
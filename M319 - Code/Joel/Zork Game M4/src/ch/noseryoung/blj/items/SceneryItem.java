@@ -3,7 +3,7 @@ package ch.noseryoung.blj.items;
 // Non-interactive scenery
 public class SceneryItem extends Item {
 
-    public SceneryItem(String name, String description) {
+    SceneryItem(String name, String description) {
         super(name, description, false);
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package ch.noseryoung.blj.leaderboard;
+
+// One finished escape. Runs are ranked by time, then by number of commands;
+// the sequence number keeps runs with equal results apart in the index.
+public class EscapeRun implements Comparable<EscapeRun> {
+    private final String playerName;
+    private final int commands;
+    private final int roomsVisited;
+    private final long durationMillis;
+    private final long finishedAt;
+    private final long sequence;
+
+    public EscapeRun(String playerName, int commands, int roomsVisited, long durationMillis, long finishedAt) {
+        this(playerName, commands, roomsVisited, durationMillis, finishedAt, 0);
+    }
+
+    private EscapeRun(String playerName, int commands, int roomsVisited, long durationMillis, long finishedAt, long sequence) {
+        this.playerName = playerName;
+        this.commands = commands;
+        this.roomsVisited = roomsVisited;
+        this.durationMillis = durationMillis;
+        this.finishedAt = finishedAt;
+        this.sequence = sequence;
+    }
+
+    EscapeRun withSequence(long sequence) {
+        return new EscapeRun(playerName, commands, roomsVisited, durationMillis, finishedAt, sequence);
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public int getCommands() {
+        return commands;
+    }
+
+    public int getRoomsVisited() {
+        return roomsVisited;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    @Override
+    public int compareTo(EscapeRun other) {
+        int result = Long.compare(durationMillis, other.durationMillis);
+        if (result == 0) {
+            result = Integer.compare(commands, other.commands);
+        }
+        if (result == 0) {
+            result = Long.compare(sequence, other.sequence);
+        }
+        return result;
+    }
+}
\ No newline at end of file
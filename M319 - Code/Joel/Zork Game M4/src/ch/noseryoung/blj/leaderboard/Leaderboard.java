@@ -0,0 +1,190 @@
+package ch.noseryoung.blj.leaderboard;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Finished escapes, stored in an append-only RunStore and indexed in concurrent skip lists.
+// Inserts and queries don't lock each other, so many sessions can finish at the same time.
+public class Leaderboard implements AutoCloseable {
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+    private static final int MAX_BATCH_SIZE = 4096;
+
+    private final RunStore store;
+    // Games run on scheduler workers, the disk writes of their runs happen here instead.
+    // The writer takes every run queued so far and appends them with a single force.
+    private final Queue<PendingRun> pending = new ConcurrentLinkedQueue<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "zork-leaderboard");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ConcurrentSkipListSet<EscapeRun> ranking = new ConcurrentSkipListSet<>();
+    // Runs per second and per millisecond of duration: a percentile query adds up the seconds
+    // above the given time and only the milliseconds of its own second, so the rank stays exact
+    private final ConcurrentSkipListMap<Long, LongAdder> runsPerSecond = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, LongAdder> runsPerMilli = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder runCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+
+    private Leaderboard(RunStore store) {
+        this.store = store;
+    }
+
+    // Opens the store and rebuilds the index from it
+    public static Leaderboard open(Path file) throws IOException {
+        Leaderboard leaderboard = new Leaderboard(new RunStore(file));
+        try {
+            leaderboard.store.recover(leaderboard::index);
+        } catch (IOException e) {
+            leaderboard.close();
+            throw e;
+        }
+        return leaderboard;
+    }
+
+    public void record(EscapeRun run) throws IOException {
+        store.append(run);
+        batchCount.increment();
+        index(run);
+    }
+
+    // Returns at once; the run is indexed once it is on disk
+    public CompletableFuture<Void> recordLater(EscapeRun run) {
+        PendingRun entry = new PendingRun(run);
+        pending.add(entry);
+        try {
+            writer.execute(this::writePending);
+        } catch (RejectedExecutionException e) {
+            // Closed: only fail the run if no earlier drain has taken it yet
+            if (pending.remove(entry)) {
+                entry.result.completeExceptionally(e);
+            }
+        }
+        return entry.result;
+    }
+
+    public List<EscapeRun> getTop(int count) {
+        List<EscapeRun> top = new ArrayList<>(count);
+        for (EscapeRun run : ranking) {
+            if (top.size() == count) {
+                break;
+            }
+            top.add(run);
+        }
+        return top;
+    }
+
+    // Share of all runs, in percent, that took longer than the given time
+    public double getPercentileRank(long durationMillis) {
+        long total = runCount.sum();
+        if (total == 0) {
+            return 100;
+        }
+        long seconds = toSeconds(durationMillis);
+        long slower = 0;
+        for (LongAdder count : runsPerSecond.tailMap(seconds, false).values()) {
+            slower += count.sum();
+        }
+        long nextSecond = (seconds + 1) * 1000;
+        for (LongAdder count : runsPerMilli.subMap(durationMillis, false, nextSecond, false).values()) {
+            slower += count.sum();
+        }
+        return 100.0 * slower / total;
+    }
+
+    public long getRunCount() {
+        return runCount.sum();
+    }
+
+    // Number of forced appends; lower than the run count when runs were grouped
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    // Waits for the runs that are still being written
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.close();
+    }
+
+    // Every queued run has its own task, later tasks often find the queue already drained
+    private void writePending() {
+        List<PendingRun> batch = new ArrayList<>();
+        PendingRun entry;
+        while ((entry = pending.poll()) != null) {
+            batch.add(entry);
+            if (batch.size() == MAX_BATCH_SIZE || pending.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingRun> batch) {
+        List<EscapeRun> runs = new ArrayList<>(batch.size());
+        for (PendingRun entry : batch) {
+            runs.add(entry.run);
+        }
+        try {
+            store.append(runs);
+        } catch (IOException e) {
+            fail(batch, new UncheckedIOException(e));
+            return;
+        } catch (RuntimeException e) {
+            fail(batch, e);
+            return;
+        }
+        batchCount.increment();
+        for (PendingRun entry : batch) {
+            index(entry.run);
+            entry.result.complete(null);
+        }
+    }
+
+    private static void fail(List<PendingRun> batch, RuntimeException error) {
+        for (PendingRun entry : batch) {
+            entry.result.completeExceptionally(error);
+        }
+    }
+
+    private void index(EscapeRun run) {
+        ranking.add(run.withSequence(sequence.incrementAndGet()));
+        runsPerSecond.computeIfAbsent(toSeconds(run.getDurationMillis()), seconds -> new LongAdder()).increment();
+        runsPerMilli.computeIfAbsent(run.getDurationMillis(), millis -> new LongAdder()).increment();
+        runCount.increment();
+    }
+
+    private static long toSeconds(long millis) {
+        return millis / 1000;
+    }
+
+    private static final class PendingRun {
+        private final EscapeRun run;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingRun(EscapeRun run) {
+            this.run = run;
+        }
+    }
+}
\ No newline at end of file
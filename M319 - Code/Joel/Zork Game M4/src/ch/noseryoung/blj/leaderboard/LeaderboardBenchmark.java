@@ -0,0 +1,76 @@
+package ch.noseryoung.blj.leaderboard;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Many sessions finishing at once: every thread hands its runs to the writer like a game does
+// and asks for the top ten and its percentile rank after each one. At the end the index is
+// rebuilt from the file.
+// Usage: LeaderboardBenchmark [threads] [runsPerThread]
+public class LeaderboardBenchmark {
+    private static final int TOP_COUNT = 10;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 4;
+        int runsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        Path file = Files.createTempFile("leaderboard", ".dat");
+        try {
+            long recorded = measureInserts(file, threads, runsPerThread);
+            measureRebuild(file, recorded);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long measureInserts(Path file, int threads, int runsPerThread) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (Leaderboard leaderboard = Leaderboard.open(file)) {
+            long start = System.nanoTime();
+            Future<?>[] results = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+                results[i] = pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    CompletableFuture<?>[] written = new CompletableFuture<?>[runsPerThread];
+                    for (int run = 0; run < runsPerThread; run++) {
+                        long duration = random.nextLong(30_000, 3_600_000);
+                        written[run] = leaderboard.recordLater(new EscapeRun("Player " + thread, random.nextInt(20, 400),
+                                random.nextInt(1, 12), duration, System.currentTimeMillis()));
+                        leaderboard.getTop(TOP_COUNT);
+                        leaderboard.getPercentileRank(duration);
+                    }
+                    // Counted as done once every run is on disk
+                    CompletableFuture.allOf(written).join();
+                    return null;
+                });
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            long runs = (long) threads * runsPerThread;
+            System.out.printf("%d threads recorded %d runs in %d ms (%.0f runs/s, each with top-%d and rank query)%n",
+                    threads, runs, TimeUnit.NANOSECONDS.toMillis(elapsed), runs / (elapsed / 1e9), TOP_COUNT);
+            System.out.printf("The writer forced %d batches, %.1f runs per force%n",
+                    leaderboard.getBatchCount(), runs / (double) Math.max(1, leaderboard.getBatchCount()));
+            return leaderboard.getRunCount();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void measureRebuild(Path file, long expected) throws Exception {
+        long start = System.nanoTime();
+        try (Leaderboard leaderboard = Leaderboard.open(file)) {
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Rebuilt %d of %d runs from %d KB in %d ms%n", leaderboard.getRunCount(), expected,
+                    Files.size(file) / 1024, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+}
\ No newline at end of file
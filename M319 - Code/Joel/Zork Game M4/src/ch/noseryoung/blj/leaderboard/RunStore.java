@@ -0,0 +1,160 @@
+package ch.noseryoung.blj.leaderboard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Append-only file of escape runs. Every record is prefixed with its length:
+// [int length][long finishedAt][long durationMillis][int commands][int roomsVisited][short nameLength][name bytes]
+// A record cut off by a crash at the end of the file is removed by recover() before anything is appended.
+// A record with an impossible length marks the end of the valid data as well.
+// append() returns once the records are on disk; appends that wait at the same time share one force.
+public class RunStore implements AutoCloseable {
+    private static final int FIXED_SIZE = Long.BYTES * 2 + Integer.BYTES * 2 + Short.BYTES;
+    private static final int MAX_NAME_BYTES = 256;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Object forceLock = new Object();
+    // End of the records written so far and of those known to be on disk
+    private volatile long writtenUpTo;
+    private long forcedUpTo;
+    private volatile boolean recovered;
+
+    public RunStore(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public void append(EscapeRun run) throws IOException {
+        append(List.of(run));
+    }
+
+    // Writes the runs in one go and forces once, the caller batches runs that finished together
+    public void append(List<EscapeRun> runs) throws IOException {
+        if (!recovered) {
+            throw new IllegalStateException("recover() must run before the first append");
+        }
+        byte[][] names = new byte[runs.size()][];
+        int size = 0;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = encodeName(runs.get(i).getPlayerName());
+            size += Integer.BYTES + FIXED_SIZE + names[i].length;
+        }
+        ByteBuffer records = ByteBuffer.allocate(size);
+        for (int i = 0; i < names.length; i++) {
+            EscapeRun run = runs.get(i);
+            records.putInt(FIXED_SIZE + names[i].length)
+                    .putLong(run.getFinishedAt())
+                    .putLong(run.getDurationMillis())
+                    .putInt(run.getCommands())
+                    .putInt(run.getRoomsVisited())
+                    .putShort((short) names[i].length)
+                    .put(names[i]);
+        }
+        records.flip();
+        long end;
+        // One write per batch keeps records whole when several threads append at once
+        synchronized (channel) {
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+            end = channel.position();
+            writtenUpTo = end;
+        }
+        force(end);
+    }
+
+    // Streams all complete records through a large buffer, the file is never loaded as a whole.
+    // Everything after the last valid record is cut off, so the next append starts on a record
+    // boundary: a torn record, or a tail of zeros a crash left behind when the file grew first.
+    public void recover(Consumer<EscapeRun> consumer) throws IOException {
+        long validLength = 0;
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            boolean valid = true;
+            while (valid && (reader.read(buffer) > 0 || buffer.position() > 0)) {
+                buffer.flip();
+                boolean progress = false;
+                while (buffer.remaining() >= Integer.BYTES) {
+                    int length = buffer.getInt(buffer.position());
+                    if (length < FIXED_SIZE || length > FIXED_SIZE + MAX_NAME_BYTES) {
+                        valid = false;
+                        break;
+                    }
+                    if (buffer.remaining() < Integer.BYTES + length) {
+                        break;
+                    }
+                    // The name must fill the rest of the record exactly
+                    int nameLength = buffer.getShort(buffer.position() + Integer.BYTES + FIXED_SIZE - Short.BYTES);
+                    if (nameLength != length - FIXED_SIZE) {
+                        valid = false;
+                        break;
+                    }
+                    buffer.getInt();
+                    consumer.accept(readRecord(buffer));
+                    validLength += Integer.BYTES + length;
+                    progress = true;
+                }
+                buffer.compact();
+                if (!progress && reader.position() == reader.size()) {
+                    break;
+                }
+            }
+        }
+        synchronized (channel) {
+            if (channel.size() > validLength) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+            channel.position(validLength);
+            writtenUpTo = validLength;
+            forcedUpTo = validLength;
+            recovered = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Group commit: whoever gets the lock forces everything written so far,
+    // appends that were waiting behind it find their record already on disk
+    private void force(long end) throws IOException {
+        synchronized (forceLock) {
+            if (forcedUpTo >= end) {
+                return;
+            }
+            long upTo = writtenUpTo;
+            channel.force(false);
+            forcedUpTo = upTo;
+        }
+    }
+
+    private static EscapeRun readRecord(ByteBuffer buffer) {
+        long finishedAt = buffer.getLong();
+        long durationMillis = buffer.getLong();
+        int commands = buffer.getInt();
+        int roomsVisited = buffer.getInt();
+        byte[] name = new byte[buffer.getShort()];
+        buffer.get(name);
+        return new EscapeRun(new String(name, StandardCharsets.UTF_8), commands, roomsVisited, durationMillis, finishedAt);
+    }
+
+    private static byte[] encodeName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_NAME_BYTES) {
+            return bytes;
+        }
+        // Cut on a character boundary so the stored name is still valid UTF-8
+        int end = Math.min(name.length(), MAX_NAME_BYTES / 4);
+        return name.substring(0, end).getBytes(StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package ch.noseryoung.blj.rules;
+
+import java.util.Arrays;
+
+// Declarative condition over game facts. Conditions are only a description,
+// the RuleBase compiles them once into shared nodes of its network.
+public final class Condition {
+    enum Type { AT_LEAST, EQUALS, AND, OR, NOT }
+
+    private static final Condition ALWAYS = new Condition(Type.AND, null, 0, null, new Condition[0]);
+
+    final Type type;
+    final String fact;
+    final int value;
+    final String symbol;
+    final Condition[] children;
+
+    private Condition(Type type, String fact, int value, String symbol, Condition[] children) {
+        this.type = type;
+        this.fact = fact;
+        this.value = value;
+        this.symbol = symbol;
+        this.children = children;
+    }
+
+    public static Condition always() {
+        return ALWAYS;
+    }
+
+    public static Condition isTrue(String fact) {
+        return atLeast(fact, 1);
+    }
+
+    public static Condition isFalse(String fact) {
+        return not(isTrue(fact));
+    }
+
+    public static Condition atLeast(String fact, int value) {
+        return new Condition(Type.AT_LEAST, fact, value, null, new Condition[0]);
+    }
+
+    public static Condition below(String fact, int value) {
+        return not(atLeast(fact, value));
+    }
+
+    // True when a symbol fact (for example the current room) has the given name
+    public static Condition is(String fact, String symbol) {
+        return new Condition(Type.EQUALS, fact, 0, symbol, new Condition[0]);
+    }
+
+    public static Condition not(Condition condition) {
+        return new Condition(Type.NOT, null, 0, null, new Condition[]{condition});
+    }
+
+    public Condition and(Condition other) {
+        return new Condition(Type.AND, null, 0, null, new Condition[]{this, other});
+    }
+
+    public Condition or(Condition other) {
+        return new Condition(Type.OR, null, 0, null, new Condition[]{this, other});
+    }
+
+    // Equal keys mean equal conditions, the RuleBase uses this to share nodes between rules
+    String getKey() {
+        switch (type) {
+            case AT_LEAST: return fact + ">=" + value;
+            case EQUALS: return fact + "==" + symbol;
+            case NOT: return "!(" + children[0].getKey() + ")";
+            default:
+                String[] keys = new String[children.length];
+                for (int i = 0; i < children.length; i++) {
+                    keys[i] = children[i].getKey();
+                }
+                return type + Arrays.toString(keys);
+        }
+    }
+}
\ No newline at end of file
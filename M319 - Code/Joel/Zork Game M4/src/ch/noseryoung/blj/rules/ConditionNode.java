@@ -0,0 +1,48 @@
+package ch.noseryoung.blj.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Compiled condition: fact tests are the entry points of the network,
+// AND/OR/NOT nodes combine the cached results of their children
+final class ConditionNode {
+    final int index;
+    final Condition.Type type;
+    final int slot;
+    final int value;
+    final int[] children;
+    final List<ConditionNode> parents = new ArrayList<>();
+
+    ConditionNode(int index, Condition.Type type, int slot, int value, int[] children) {
+        this.index = index;
+        this.type = type;
+        this.slot = slot;
+        this.value = value;
+        this.children = children;
+    }
+
+    boolean evaluate(int[] facts, boolean[] results) {
+        switch (type) {
+            case AT_LEAST:
+                return facts[slot] >= value;
+            case EQUALS:
+                return facts[slot] == value;
+            case NOT:
+                return !results[children[0]];
+            case OR:
+                for (int child : children) {
+                    if (results[child]) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                for (int child : children) {
+                    if (!results[child]) {
+                        return false;
+                    }
+                }
+                return true;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package ch.noseryoung.blj.rules;
+
+// A condition plus the action that runs when it holds. A rule is either triggered by a
+// change of one fact or by using an item whose name contains the item pattern.
+public class Rule {
+    private final String name;
+    private final String triggerFact;
+    private final String itemPattern;
+    private final Condition condition;
+    private final RuleAction action;
+    int node = -1;
+
+    private Rule(String name, String triggerFact, String itemPattern, Condition condition, RuleAction action) {
+        this.name = name;
+        this.triggerFact = triggerFact;
+        this.itemPattern = itemPattern;
+        this.condition = condition;
+        this.action = action;
+    }
+
+    public static Rule onChange(String name, String fact, Condition condition, RuleAction action) {
+        return new Rule(name, fact, null, condition, action);
+    }
+
+    public static Rule onUse(String name, String itemPattern, Condition condition, RuleAction action) {
+        return new Rule(name, null, itemPattern.toLowerCase(), condition, action);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    String getTriggerFact() {
+        return triggerFact;
+    }
+
+    String getItemPattern() {
+        return itemPattern;
+    }
+
+    Condition getCondition() {
+        return condition;
+    }
+
+    RuleAction getAction() {
+        return action;
+    }
+}
\ No newline at end of file
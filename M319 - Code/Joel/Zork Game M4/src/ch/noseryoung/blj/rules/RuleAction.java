@@ -0,0 +1,9 @@
+package ch.noseryoung.blj.rules;
+
+import ch.noseryoung.blj.Game;
+import ch.noseryoung.blj.items.Item;
+
+public interface RuleAction {
+    // item is the used item for item rules and null for rules triggered by a fact change
+    void execute(Game game, Item item);
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+package ch.noseryoung.blj.rules;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Compiled rule network in the style of Rete, built once and shared by all sessions.
+// Equal sub-conditions share one node and every node knows its parents, so a fact change
+// only re-evaluates the nodes that depend on that fact instead of every rule.
+public class RuleBase {
+    private final Map<String, Integer> factSlots = new HashMap<>();
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private final Map<String, ConditionNode> nodesByKey = new HashMap<>();
+    private final List<ConditionNode> nodes = new ArrayList<>();
+    private final List<List<ConditionNode>> nodesByFact = new ArrayList<>();
+    private final List<List<Rule>> rulesByFact = new ArrayList<>();
+    private final List<Rule> useRules = new ArrayList<>();
+    private final Map<String, List<Rule>> useRulesByItem = new ConcurrentHashMap<>();
+
+    public void declareFact(String fact) {
+        slotOf(fact);
+    }
+
+    public void addRule(Rule rule) {
+        rule.node = compile(rule.getCondition()).index;
+        if (rule.getTriggerFact() != null) {
+            rulesByFact.get(slotOf(rule.getTriggerFact())).add(rule);
+        } else {
+            useRules.add(rule);
+            useRulesByItem.clear();
+        }
+    }
+
+    int getFactSlot(String fact) {
+        Integer slot = factSlots.get(fact);
+        if (slot == null) {
+            throw new IllegalArgumentException("Unknown fact: " + fact);
+        }
+        return slot;
+    }
+
+    // Names never mentioned by a rule share symbol 0, no condition can match them
+    int getSymbol(String name) {
+        return symbols.getOrDefault(name, 0);
+    }
+
+    int getFactCount() {
+        return factSlots.size();
+    }
+
+    int getNodeCount() {
+        return nodes.size();
+    }
+
+    ConditionNode getNode(int index) {
+        return nodes.get(index);
+    }
+
+    List<ConditionNode> getNodesForFact(int slot) {
+        return nodesByFact.get(slot);
+    }
+
+    List<Rule> getRulesForFact(int slot) {
+        return rulesByFact.get(slot);
+    }
+
+    // Resolved once per item name, afterwards using an item is a single map lookup.
+    // The first declared pattern the name contains wins, like an if/else chain, so a
+    // "battery-powered flashlight" only gets the flashlight rules, never the battery ones.
+    List<Rule> getRulesForItem(String itemName) {
+        return useRulesByItem.computeIfAbsent(itemName.toLowerCase(), name -> {
+            String pattern = null;
+            for (Rule rule : useRules) {
+                if (name.contains(rule.getItemPattern())) {
+                    pattern = rule.getItemPattern();
+                    break;
+                }
+            }
+            List<Rule> matching = new ArrayList<>();
+            for (Rule rule : useRules) {
+                if (rule.getItemPattern().equals(pattern)) {
+                    matching.add(rule);
+                }
+            }
+            return matching;
+        });
+    }
+
+    private int slotOf(String fact) {
+        Integer slot = factSlots.get(fact);
+        if (slot == null) {
+            slot = factSlots.size();
+            factSlots.put(fact, slot);
+            nodesByFact.add(new ArrayList<>());
+            rulesByFact.add(new ArrayList<>());
+        }
+        return slot;
+    }
+
+    private ConditionNode compile(Condition condition) {
+        String key = condition.getKey();
+        ConditionNode existing = nodesByKey.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        // Children are compiled first, so node indexes are always in evaluation order
+        int[] children = new int[condition.children.length];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = compile(condition.children[i]).index;
+        }
+
+        int slot = condition.fact == null ? -1 : slotOf(condition.fact);
+        int value = condition.type == Condition.Type.EQUALS
+                ? symbols.computeIfAbsent(condition.symbol, symbol -> symbols.size() + 1)
+                : condition.value;
+
+        ConditionNode node = new ConditionNode(nodes.size(), condition.type, slot, value, children);
+        nodes.add(node);
+        nodesByKey.put(key, node);
+        if (slot >= 0) {
+            nodesByFact.get(slot).add(node);
+        }
+        for (int child : children) {
+            nodes.get(child).parents.add(node);
+        }
+        return node;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package ch.noseryoung.blj.rules;
+
+import ch.noseryoung.blj.Game;
+import ch.noseryoung.blj.items.Item;
+import java.util.ArrayList;
+import java.util.List;
+
+// Working memory of one game: the current fact values and the cached result of every node.
+// Changing a fact updates the affected nodes and then runs the rules triggered by that fact.
+public class RuleSession {
+    private final RuleBase rules;
+    private final Game game;
+    private final boolean[] results;
+    private int[] facts;
+    private boolean factsShared = false;
+
+    public RuleSession(RuleBase rules, Game game) {
+        this.rules = rules;
+        this.game = game;
+        this.facts = new int[rules.getFactCount()];
+        this.results = new boolean[rules.getNodeCount()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = rules.getNode(i).evaluate(facts, results);
+        }
+    }
+
+    public int get(String fact) {
+        return facts[rules.getFactSlot(fact)];
+    }
+
+    public boolean isTrue(String fact) {
+        return get(fact) != 0;
+    }
+
+    public void set(String fact, boolean value) {
+        set(fact, value ? 1 : 0);
+    }
+
+    public void setSymbol(String fact, String symbol) {
+        set(fact, rules.getSymbol(symbol));
+    }
+
+    public void set(String fact, int value) {
+        int slot = rules.getFactSlot(fact);
+        if (facts[slot] == value) {
+            return;
+        }
+        update(slot, value);
+        fireAll(matching(rules.getRulesForFact(slot)), null);
+    }
+
+    // Runs the rules of the item's first matching pattern whose condition holds, false if none did
+    public boolean use(Item item) {
+        List<Rule> fired = matching(rules.getRulesForItem(item.getName()));
+        fireAll(fired, item);
+        return !fired.isEmpty();
+    }
+
+    // The returned array must not be modified, it is copied before the next change
+    public int[] getFacts() {
+        factsShared = true;
+        return facts;
+    }
+
+    // Brings all nodes back to the given facts without running any rules
+    public void restoreFacts(int[] saved) {
+        for (int slot = 0; slot < saved.length; slot++) {
+            if (facts[slot] != saved[slot]) {
+                update(slot, saved[slot]);
+            }
+        }
+    }
+
+    private void update(int slot, int value) {
+        if (factsShared) {
+            facts = facts.clone();
+            factsShared = false;
+        }
+        facts[slot] = value;
+        for (ConditionNode node : rules.getNodesForFact(slot)) {
+            refresh(node);
+        }
+    }
+
+    private void refresh(ConditionNode node) {
+        boolean result = node.evaluate(facts, results);
+        if (result != results[node.index]) {
+            results[node.index] = result;
+            for (ConditionNode parent : node.parents) {
+                refresh(parent);
+            }
+        }
+    }
+
+    // Matches are collected first, so one rule's action can't enable another rule of the same trigger
+    private List<Rule> matching(List<Rule> candidates) {
+        List<Rule> matches = new ArrayList<>();
+        for (Rule rule : candidates) {
+            if (results[rule.node]) {
+                matches.add(rule);
+            }
+        }
+        return matches;
+    }
+
+    private void fireAll(List<Rule> matches, Item item) {
+        for (Rule rule : matches) {
+            rule.getAction().execute(game, item);
+        }
+    }
+}
\ No newline at end of file
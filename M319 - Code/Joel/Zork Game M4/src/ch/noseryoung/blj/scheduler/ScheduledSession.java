@@ -0,0 +1,29 @@
+package ch.noseryoung.blj.scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// A session registered with the SessionScheduler. Its tasks wait in its own lock-free mailbox,
+// in the order they were submitted. The session is queued at most once at a time, at its owner,
+// so only one worker ever runs its tasks and the game behind it needs no locks.
+public class ScheduledSession {
+    final Queue<Task> mailbox = new ConcurrentLinkedQueue<>();
+    // Set while the session waits in a worker's run queue or runs there
+    final AtomicBoolean scheduled = new AtomicBoolean();
+    // Worker the session is queued at next; changed by the scheduler when it rebalances
+    volatile Worker owner;
+    // Tasks run so far, written by the worker running the session
+    volatile long executed;
+    // Used by the rebalancer only
+    long sampled;
+    long recentLoad;
+
+    ScheduledSession(Worker owner) {
+        this.owner = owner;
+    }
+
+    public int getWorkerIndex() {
+        return owner.getIndex();
+    }
+}
\ No newline at end of file
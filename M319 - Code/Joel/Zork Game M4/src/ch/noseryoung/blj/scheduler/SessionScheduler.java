@@ -0,0 +1,181 @@
+package ch.noseryoung.blj.scheduler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Runs sessions on a fixed set of worker threads, by default one per core. Every session is
+// owned by one worker and its tasks run there in submission order, so Game, Player, Room and
+// Inventory stay unsynchronized. Once a second the load of the last interval is compared and
+// busy sessions are handed from the busiest to the idlest worker.
+public class SessionScheduler implements AutoCloseable {
+    private static final long REBALANCE_INTERVAL_MILLIS = 1000;
+    // Smaller differences between two workers are not worth moving sessions for
+    private static final long MIN_LOAD_GAP = 64;
+
+    private final Worker[] workers;
+    private final Set<ScheduledSession> sessions = ConcurrentHashMap.newKeySet();
+    // Guards the session counts of the workers, only taken when sessions come, go or move
+    private final Object registrationLock = new Object();
+    private final ScheduledExecutorService rebalancer;
+    private final AtomicLong moves = new AtomicLong();
+    private volatile boolean closed;
+
+    public SessionScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public SessionScheduler(int workerCount) {
+        workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i);
+            workers[i].start();
+        }
+        rebalancer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "zork-rebalancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebalancer.scheduleWithFixedDelay(this::rebalance,
+                REBALANCE_INTERVAL_MILLIS, REBALANCE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // New sessions go to the worker with the fewest sessions
+    public ScheduledSession register() {
+        synchronized (registrationLock) {
+            Worker target = workers[0];
+            for (Worker worker : workers) {
+                if (worker.getSessionCount().get() < target.getSessionCount().get()) {
+                    target = worker;
+                }
+            }
+            target.getSessionCount().incrementAndGet();
+            ScheduledSession session = new ScheduledSession(target);
+            sessions.add(session);
+            return session;
+        }
+    }
+
+    // Tasks that are already submitted still run
+    public void unregister(ScheduledSession session) {
+        synchronized (registrationLock) {
+            if (sessions.remove(session)) {
+                session.owner.getSessionCount().decrementAndGet();
+            }
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(ScheduledSession session, Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        session.mailbox.offer(new Task(() -> {
+            try {
+                result.complete(work.get());
+            } catch (Throwable e) {
+                // The worker has to survive, the caller gets the failure
+                result.completeExceptionally(e);
+            }
+        }, result));
+        if (session.scheduled.compareAndSet(false, true)) {
+            session.owner.schedule(session);
+        }
+        if (closed) {
+            rejectAll(session);
+        }
+        return result;
+    }
+
+    // Runs the work on the session's worker and waits for the result
+    public <T> T call(ScheduledSession session, Supplier<T> work) {
+        return submit(session, work).join();
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    public long getMoveCount() {
+        return moves.get();
+    }
+
+    // Tasks that haven't run yet fail with a RejectedExecutionException, nobody waits forever
+    @Override
+    public void close() {
+        closed = true;
+        rebalancer.shutdownNow();
+        try {
+            for (Worker worker : workers) {
+                worker.stop();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Worker worker : workers) {
+            worker.rejectQueued();
+        }
+        for (ScheduledSession session : sessions) {
+            rejectAll(session);
+        }
+    }
+
+    static void rejectAll(ScheduledSession session) {
+        Task task;
+        while ((task = session.mailbox.poll()) != null) {
+            task.reject();
+        }
+    }
+
+    private void rebalance() {
+        long[] load = new long[workers.length];
+        List<ScheduledSession> snapshot = new ArrayList<>(sessions);
+        for (ScheduledSession session : snapshot) {
+            long executed = session.executed;
+            session.recentLoad = executed - session.sampled;
+            session.sampled = executed;
+            load[session.owner.getIndex()] += session.recentLoad;
+        }
+
+        int busiest = 0;
+        int idlest = 0;
+        for (int i = 1; i < load.length; i++) {
+            busiest = load[i] > load[busiest] ? i : busiest;
+            idlest = load[i] < load[idlest] ? i : idlest;
+        }
+        long gap = load[busiest] - load[idlest];
+        if (gap < MIN_LOAD_GAP) {
+            return;
+        }
+
+        // Move the busiest sessions that still fit into half of the gap
+        Worker source = workers[busiest];
+        Worker target = workers[idlest];
+        snapshot.sort(Comparator.comparingLong((ScheduledSession session) -> session.recentLoad).reversed());
+        for (ScheduledSession session : snapshot) {
+            if (session.owner == source && session.recentLoad > 0 && session.recentLoad * 2 <= gap && move(session, target)) {
+                gap -= session.recentLoad * 2;
+            }
+        }
+    }
+
+    // Only changes where the session is queued next; a turn that is already queued or running
+    // finishes on the old worker, and the mailbox keeps the order of the tasks
+    private boolean move(ScheduledSession session, Worker target) {
+        synchronized (registrationLock) {
+            if (!sessions.contains(session)) {
+                return false;
+            }
+            session.owner.getSessionCount().decrementAndGet();
+            target.getSessionCount().incrementAndGet();
+            session.owner = target;
+        }
+        moves.incrementAndGet();
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package ch.noseryoung.blj.scheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+// Work for one session, waiting in the session's mailbox
+class Task {
+    private final Runnable work;
+    private final CompletableFuture<?> result;
+
+    Task(Runnable work, CompletableFuture<?> result) {
+        this.work = work;
+        this.result = result;
+    }
+
+    void run() {
+        work.run();
+    }
+
+    // The scheduler closed before the task could run
+    void reject() {
+        result.completeExceptionally(new RejectedExecutionException("The session scheduler is closed"));
+    }
+}
\ No newline at end of file
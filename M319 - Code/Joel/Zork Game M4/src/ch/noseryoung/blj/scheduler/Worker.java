@@ -0,0 +1,104 @@
+package ch.noseryoung.blj.scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Event loop of one worker thread. Sessions with waiting tasks arrive through a lock-free queue;
+// every loop iteration runs a batch of them, each for a few tasks so that one busy session
+// can't hold up the others. When the queue stays empty the thread spins shortly and then parks.
+class Worker implements Runnable {
+    private static final int BATCH_SIZE = 64;
+    private static final int TASKS_PER_TURN = 16;
+    private static final int SPINS_BEFORE_PARK = 256;
+
+    private final int index;
+    private final Thread thread;
+    private final Queue<ScheduledSession> runQueue = new ConcurrentLinkedQueue<>();
+    // Only changed under the scheduler's registration lock
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private volatile boolean parked;
+    private volatile boolean running = true;
+
+    Worker(int index) {
+        this.index = index;
+        this.thread = new Thread(this, "zork-worker-" + index);
+        thread.setDaemon(true);
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    AtomicInteger getSessionCount() {
+        return sessionCount;
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    // The caller has set the session's scheduled flag
+    void schedule(ScheduledSession session) {
+        runQueue.offer(session);
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    // After stop: fails the tasks of every session still waiting here
+    void rejectQueued() {
+        ScheduledSession session;
+        while ((session = runQueue.poll()) != null) {
+            SessionScheduler.rejectAll(session);
+        }
+    }
+
+    @Override
+    public void run() {
+        int idleRounds = 0;
+        while (running) {
+            if (runBatch() > 0) {
+                idleRounds = 0;
+            } else if (++idleRounds < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                // Set before the last look at the queue, so a schedule in between always unparks
+                parked = true;
+                if (runQueue.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                idleRounds = 0;
+            }
+        }
+    }
+
+    private int runBatch() {
+        int count = 0;
+        ScheduledSession session;
+        while (count < BATCH_SIZE && (session = runQueue.poll()) != null) {
+            int done = 0;
+            Task task;
+            while (done < TASKS_PER_TURN && (task = session.mailbox.poll()) != null) {
+                task.run();
+                done++;
+            }
+            session.executed += done;
+            count++;
+            session.scheduled.set(false);
+            // Tasks left or submitted meanwhile: queue the session again, at its current owner
+            if (!session.mailbox.isEmpty() && session.scheduled.compareAndSet(false, true)) {
+                session.owner.schedule(session);
+            }
+        }
+        return count;
+    }
+}
\ No newline at end of file
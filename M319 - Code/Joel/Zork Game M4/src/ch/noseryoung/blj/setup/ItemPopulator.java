@@ -3,11 +3,14 @@ package ch.noseryoung.blj.setup;
 import ch.noseryoung.blj.core.Room;
 import ch.noseryoung.blj.items.Item;
 import ch.noseryoung.blj.items.ItemFactory;
+import ch.noseryoung.blj.telemetry.WorldSetupEvent;
 
 // Handles populating rooms with items
 public class ItemPopulator {
 
     public static void populateWorld(Room[] rooms) {
+        WorldSetupEvent event = new WorldSetupEvent();
+        event.begin();
         populateYellowHallway(rooms[0]);
         populateStorageRoom(rooms[1]);
         populateElectricalRoom(rooms[2]);
@@ -16,6 +19,7 @@ public class ItemPopulator {
         populateWetCarpetArea(rooms[5]);
         populateEmptyOffice(rooms[6]);
         populateExit(rooms[7]);
+        event.finish("items", rooms.length);
     }
 
     private static void populateYellowHallway(Room room) {
@@ -43,8 +47,8 @@ public class ItemPopulator {
         room.addItem(ItemFactory.createSceneryItem("wall", "A blank yellow wall that blocks any further progress"));
 
         Item redKeycard = ItemFactory.createUsableItem("red-keycard", "A red access card with faded text reading 'SECURITY LEVEL 1'", "unlocks exits");
-        redKeycard.setHidden(true);
         room.addItem(redKeycard);
+        room.setHidden(redKeycard, true);
     }
 
     private static void populateMaintenanceCorridor(Room room) {
@@ -52,8 +56,8 @@ public class ItemPopulator {
         room.addItem(ItemFactory.createSceneryItem("vents", "Large ventilation ducts covered in dust and grime"));
 
         Item blueKeycard = ItemFactory.createUsableItem("blue-keycard", "A blue access card, slightly bent but still functional", "unlocks exits");
-        blueKeycard.setHidden(true);
         room.addItem(blueKeycard);
+        room.setHidden(blueKeycard, true);
 
         room.addItem(ItemFactory.createSceneryItem("tools", "Scattered maintenance tools covered in rust and grime"));
     }
@@ -63,8 +67,8 @@ public class ItemPopulator {
         room.addItem(ItemFactory.createSceneryItem("mold", "Dark stains climbing the walls like grasping fingers"));
 
         Item greenKeycard = ItemFactory.createUsableItem("green-keycard", "A green access card, water-damaged but still readable", "unlocks exits");
-        greenKeycard.setHidden(true);
         room.addItem(greenKeycard);
+        room.setHidden(greenKeycard, true);
 
         room.addItem(ItemFactory.createSceneryItem("stains", "Dark water damage spreading across walls and ceiling"));
     }
@@ -0,0 +1,24 @@
+package ch.noseryoung.blj.setup;
+
+import ch.noseryoung.blj.core.Room;
+
+// Rooms of a freshly built world and what has to stay open while they are played,
+// for example the class loader of a world compiled outside the application
+public class LoadedWorld {
+    private final Room[] rooms;
+    private final AutoCloseable resources;
+
+    public LoadedWorld(Room[] rooms, AutoCloseable resources) {
+        this.rooms = rooms;
+        this.resources = resources;
+    }
+
+    public Room[] getRooms() {
+        return rooms;
+    }
+
+    // Null if nothing has to be closed
+    public AutoCloseable getResources() {
+        return resources;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package ch.noseryoung.blj.setup;
+
+import ch.noseryoung.blj.rules.Rule;
+import ch.noseryoung.blj.rules.RuleBase;
+
+import static ch.noseryoung.blj.rules.Condition.*;
+
+// Handles the game rules: win conditions and what items do in which room
+public class RuleBook {
+    // Clean Code: Constants instead of magic numbers
+    public static final int REQUIRED_KEYCARDS = 3;
+
+    public static final String ROOM = "room";
+    public static final String KEYCARDS = "keycards";
+    public static final String POWER_FIXED = "powerFixed";
+    public static final String FLASHLIGHT = "flashlight";
+
+    public static RuleBase createRules() {
+        RuleBase rules = new RuleBase();
+        rules.declareFact(ROOM);
+        rules.declareFact(KEYCARDS);
+        rules.declareFact(POWER_FIXED);
+        rules.declareFact(FLASHLIGHT);
+
+        addExitRules(rules);
+        // The order of the item rules matters: an item only uses the first pattern its name contains
+        addFlashlightRules(rules);
+        addBatteryRules(rules);
+        addKeycardRules(rules);
+        addWaterRules(rules);
+        return rules;
+    }
+
+    // Checked every time a keycard is inserted
+    private static void addExitRules(RuleBase rules) {
+        rules.addRule(Rule.onChange("escape", KEYCARDS,
+                atLeast(KEYCARDS, REQUIRED_KEYCARDS).and(isTrue(POWER_FIXED)),
+                (game, item) -> {
+                    game.showMessage("All keycards inserted and power restored!");
+                    game.showMessage("The exit door opens...");
+                    game.showMessage("\n=== CONGRATULATIONS! YOU ESCAPED! ===");
+                    game.escape();
+                }));
+        rules.addRule(Rule.onChange("power-missing", KEYCARDS,
+                atLeast(KEYCARDS, REQUIRED_KEYCARDS).and(isFalse(POWER_FIXED)),
+                (game, item) -> game.showMessage("All keycards inserted, but power is missing.")));
+        rules.addRule(Rule.onChange("keycard-progress", KEYCARDS,
+                below(KEYCARDS, REQUIRED_KEYCARDS),
+                (game, item) -> game.showMessage("Progress: " + game.getKeycardsFound() + "/" + REQUIRED_KEYCARDS + " keycards.")));
+    }
+
+    private static void addFlashlightRules(RuleBase rules) {
+        rules.addRule(Rule.onUse("flashlight-on", "flashlight", isFalse(FLASHLIGHT), (game, item) -> {
+            game.setHasFlashlight(true);
+            game.showMessage("You turn on the flashlight. Its beam cuts through the dim areas.");
+            game.revealHiddenItems(game.getPlayer().getCurrentRoom());
+        }));
+        rules.addRule(Rule.onUse("flashlight-already-on", "flashlight", isTrue(FLASHLIGHT),
+                (game, item) -> game.showMessage("The flashlight is already on.")));
+    }
+
+    private static void addBatteryRules(RuleBase rules) {
+        rules.addRule(Rule.onUse("install-battery", "battery",
+                is(ROOM, "Electrical Room").and(isFalse(POWER_FIXED)),
+                (game, item) -> {
+                    game.setPowerFixed(true);
+                    game.showMessage("You install the battery. Power restored!");
+                }));
+    }
+
+    private static void addKeycardRules(RuleBase rules) {
+        rules.addRule(Rule.onUse("insert-keycard", "keycard",
+                is(ROOM, "Empty Office").or(is(ROOM, "Exit")),
+                (game, item) -> {
+                    game.showMessage("You insert the " + item.getName() + " into the card reader.");
+                    game.incrementKeycardsFound();
+                }));
+    }
+
+    private static void addWaterRules(RuleBase rules) {
+        rules.addRule(Rule.onUse("drink-water", "water", always(),
+                (game, item) -> game.showMessage("You drink some water. Refreshing!")));
+        rules.addRule(Rule.onUse("water-protection", "water", is(ROOM, "Wet Carpet Area"),
+                (game, item) -> game.showMessage("You feel protected from the toxic environment.")));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package ch.noseryoung.blj.setup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Problems found by the WorldValidator. Safe to fill from several threads;
+// only the first messages are kept so a broken generated world can't flood the log.
+public class ValidationReport {
+    private static final int MAX_MESSAGES = 100;
+
+    private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+    private final Queue<String> warnings = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger errorCount = new AtomicInteger();
+    private final AtomicInteger warningCount = new AtomicInteger();
+
+    void addError(String message) {
+        if (errorCount.getAndIncrement() < MAX_MESSAGES) {
+            errors.add(message);
+        }
+    }
+
+    void addWarning(String message) {
+        if (warningCount.getAndIncrement() < MAX_MESSAGES) {
+            warnings.add(message);
+        }
+    }
+
+    public boolean isValid() {
+        return errorCount.get() == 0;
+    }
+
+    public int getErrorCount() {
+        return errorCount.get();
+    }
+
+    public int getWarningCount() {
+        return warningCount.get();
+    }
+
+    public List<String> getErrors() {
+        return sorted(errors);
+    }
+
+    public List<String> getWarnings() {
+        return sorted(warnings);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(errorCount.get()).append(" error(s), ").append(warningCount.get()).append(" warning(s)");
+        for (String error : getErrors()) {
+            text.append("\n  ERROR: ").append(error);
+        }
+        for (String warning : getWarnings()) {
+            text.append("\n  WARNING: ").append(warning);
+        }
+        return text.toString();
+    }
+
+    // Parallel checks add messages in any order, sorting keeps reports comparable
+    private static List<String> sorted(Queue<String> messages) {
+        List<String> list = new ArrayList<>(messages);
+        Collections.sort(list);
+        return list;
+    }
+}
\ No newline at end of file
@@ -1,13 +1,17 @@
 package ch.noseryoung.blj.setup;
 
 import ch.noseryoung.blj.core.Room;
+import ch.noseryoung.blj.telemetry.WorldSetupEvent;
 
 // Handles room creation and connections
 public class WorldBuilder {
 
     public static Room[] createWorld() {
+        WorldSetupEvent event = new WorldSetupEvent();
+        event.begin();
         Room[] rooms = createRooms();
         connectRooms(rooms);
+        event.finish("rooms", rooms.length);
         return rooms;
     }
 
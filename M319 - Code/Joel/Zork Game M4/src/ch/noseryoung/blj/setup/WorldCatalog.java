@@ -0,0 +1,94 @@
+package ch.noseryoung.blj.setup;
+
+import ch.noseryoung.blj.core.Room;
+import ch.noseryoung.blj.exceptions.WorldLoadException;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Holds the current world version. A reload builds and validates the new version next to
+// the running one and then swaps a single reference (read-copy-update): new sessions start
+// on the new version, running sessions keep their old version until they migrate or finish.
+// Sessions never wait for a reload, they only read the reference.
+public class WorldCatalog {
+    private static final WorldCatalog SHARED = new WorldCatalog();
+
+    private final AtomicReference<WorldVersion> current = new AtomicReference<>();
+    private final Object reloadLock = new Object();
+    private int nextNumber = 1;
+
+    public static WorldCatalog shared() {
+        return SHARED;
+    }
+
+    public WorldVersion current() {
+        WorldVersion version = current.get();
+        if (version == null) {
+            version = loadBuiltIn();
+        }
+        return version;
+    }
+
+    // The current version, held for the caller until it calls release()
+    public WorldVersion acquireCurrent() {
+        while (true) {
+            WorldVersion version = current();
+            if (version.acquire()) {
+                return version;
+            }
+        }
+    }
+
+    // Acquires the given version if it is still open, false once it was closed
+    public boolean acquire(WorldVersion version) {
+        return version.acquire();
+    }
+
+    // Returns the new version; the old one stays in use until no session references it
+    public WorldVersion reload(WorldSource source) throws WorldLoadException {
+        synchronized (reloadLock) {
+            WorldVersion next = build(source);
+            WorldVersion previous = current.getAndSet(next);
+            if (previous != null) {
+                previous.release();
+            }
+            return next;
+        }
+    }
+
+    private WorldVersion loadBuiltIn() {
+        synchronized (reloadLock) {
+            if (current.get() == null) {
+                try {
+                    current.set(build(WorldSource.BUILT_IN));
+                } catch (WorldLoadException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }
+            return current.get();
+        }
+    }
+
+    private WorldVersion build(WorldSource source) throws WorldLoadException {
+        LoadedWorld world = source.load();
+        try {
+            Room[] rooms = world.getRooms();
+            if (rooms == null || rooms.length == 0) {
+                throw new WorldLoadException("it has no rooms");
+            }
+            ValidationReport report = WorldValidator.validate(rooms, rooms[0]);
+            if (!report.isValid()) {
+                throw new WorldLoadException(report.toString());
+            }
+            return new WorldVersion(nextNumber++, rooms, world.getResources());
+        } catch (WorldLoadException | RuntimeException e) {
+            // A rejected world is never played, nothing else will close it
+            if (world.getResources() != null) {
+                try {
+                    world.getResources().close();
+                } catch (Exception closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            throw e;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package ch.noseryoung.blj.setup;
+
+import ch.noseryoung.blj.core.Room;
+import ch.noseryoung.blj.exceptions.WorldLoadException;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+
+// Builds the rooms and items of a world. The first room is where players start.
+public interface WorldSource {
+    WorldSource BUILT_IN = () -> {
+        Room[] rooms = WorldBuilder.createWorld();
+        ItemPopulator.populateWorld(rooms);
+        return rooms;
+    };
+
+    Room[] createWorld() throws WorldLoadException;
+
+    // The catalog loads through here, so it can close the world's resources once no session plays it
+    default LoadedWorld load() throws WorldLoadException {
+        return new LoadedWorld(createWorld(), null);
+    }
+
+    // Loads the named WorldSource class from a directory of compiled classes. Every load uses
+    // a new class loader, so a recompiled class is picked up without restarting.
+    // The class must not also be on the application class path, the parent loader would win.
+    static WorldSource fromClasses(Path classDirectory, String className) {
+        return new WorldSource() {
+            @Override
+            public Room[] createWorld() throws WorldLoadException {
+                // Without a catalog nobody knows when the rooms are done, the loader stays open
+                return load().getRooms();
+            }
+
+            @Override
+            public LoadedWorld load() throws WorldLoadException {
+                URLClassLoader loader;
+                try {
+                    loader = new URLClassLoader(new URL[] {classDirectory.toUri().toURL()}, WorldSource.class.getClassLoader());
+                } catch (MalformedURLException e) {
+                    throw new WorldLoadException(e.toString());
+                }
+                try {
+                    Class<?> type = Class.forName(className, true, loader);
+                    if (!WorldSource.class.isAssignableFrom(type)) {
+                        throw new WorldLoadException(className + " is not a WorldSource");
+                    }
+                    // The world may still load classes lazily, the loader stays open as long as it is played
+                    Room[] rooms = ((WorldSource) type.getDeclaredConstructor().newInstance()).createWorld();
+                    return new LoadedWorld(rooms, loader);
+                } catch (ReflectiveOperationException e) {
+                    closeQuietly(loader);
+                    throw new WorldLoadException(e.toString());
+                } catch (WorldLoadException | RuntimeException e) {
+                    closeQuietly(loader);
+                    throw e;
+                }
+            }
+        };
+    }
+
+    private static void closeQuietly(URLClassLoader loader) {
+        try {
+            loader.close();
+        } catch (IOException e) {
+            // Nothing was loaded from it that could still be in use
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,185 @@
+package ch.noseryoung.blj.setup;
+
+import ch.noseryoung.blj.core.Room;
+import ch.noseryoung.blj.items.Item;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+// Checks a world before it is played: exits lead back, every room can be reached from the start,
+// room names are unique, item names are unique per room and all items needed to win can be picked up.
+// Rooms are checked in parallel, so generated worlds with millions of rooms take seconds.
+public class WorldValidator {
+    public static final List<String> REQUIRED_ITEMS =
+            List.of("battery", "red-keycard", "blue-keycard", "green-keycard", "flashlight");
+
+    private static final String[] DIRECTIONS = {"north", "south", "east", "west"};
+    private static final int[] OPPOSITE = {1, 0, 3, 2};
+    private static final int NO_EXIT = -1;
+    private static final int OUTSIDE_WORLD = -2;
+    // Small BFS levels are cheaper to expand on one thread than to split up
+    private static final int PARALLEL_FRONTIER = 1024;
+
+    private final Room[] rooms;
+    private final int[] exits;
+    private final ValidationReport report = new ValidationReport();
+
+    private WorldValidator(Room[] rooms) {
+        this.rooms = rooms;
+        this.exits = new int[rooms.length * DIRECTIONS.length];
+    }
+
+    public static ValidationReport validate(Room[] rooms, Room startRoom) {
+        WorldValidator validator = new WorldValidator(rooms);
+        validator.run(startRoom);
+        return validator.report;
+    }
+
+    private void run(Room startRoom) {
+        Map<Room, Integer> index = indexRooms();
+        Integer start = index.get(startRoom);
+        if (start == null) {
+            report.addError("The start room is not part of the world");
+            return;
+        }
+
+        IntStream.range(0, rooms.length).parallel().forEach(i -> collectExits(i, index));
+        IntStream.range(0, rooms.length).parallel().forEach(this::checkExitSymmetry);
+        IntStream.range(0, rooms.length).parallel().forEach(this::checkItemNames);
+
+        AtomicLongArray reachable = findReachableRooms(start);
+        IntStream.range(0, rooms.length).parallel()
+                .filter(i -> !isSet(reachable, i))
+                .forEach(i -> report.addError(describe(i) + " can't be reached from " + startRoom.getName()));
+        checkRequiredItems(reachable);
+    }
+
+    private Map<Room, Integer> indexRooms() {
+        Map<Room, Integer> index = new IdentityHashMap<>(rooms.length * 2);
+        // Sessions find their rooms by name when they move to a new world version
+        Map<String, Integer> names = new HashMap<>(rooms.length * 2);
+        for (int i = 0; i < rooms.length; i++) {
+            if (index.put(rooms[i], i) != null) {
+                report.addError(describe(i) + " is listed more than once");
+                continue;
+            }
+            Integer sameName = names.putIfAbsent(rooms[i].getName(), i);
+            if (sameName != null) {
+                report.addError(describe(i) + " has the same name as room #" + sameName);
+            }
+        }
+        return index;
+    }
+
+    private void collectExits(int i, Map<Room, Integer> index) {
+        Room room = rooms[i];
+        Room[] targets = {room.getNorthRoom(), room.getSouthRoom(), room.getEastRoom(), room.getWestRoom()};
+        for (int direction = 0; direction < targets.length; direction++) {
+            int target = NO_EXIT;
+            if (targets[direction] != null) {
+                target = index.getOrDefault(targets[direction], OUTSIDE_WORLD);
+            }
+            exits[i * DIRECTIONS.length + direction] = target;
+        }
+    }
+
+    private void checkExitSymmetry(int i) {
+        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+            int target = exits[i * DIRECTIONS.length + direction];
+            if (target == OUTSIDE_WORLD) {
+                report.addError(describe(i) + ": " + DIRECTIONS[direction] + " exit leads to a room outside the world");
+            } else if (target != NO_EXIT && exits[target * DIRECTIONS.length + OPPOSITE[direction]] != i) {
+                report.addError(describe(i) + ": " + DIRECTIONS[direction] + " exit to " + describe(target)
+                        + " has no " + DIRECTIONS[OPPOSITE[direction]] + " exit back");
+            }
+        }
+    }
+
+    private void checkItemNames(int i) {
+        Map<String, Item> byName = new HashMap<>();
+        Map<String, Item> byDescription = new HashMap<>();
+        for (Item item : rooms[i].getItems()) {
+            Item sameName = byName.put(item.getName().toLowerCase(), item);
+            if (sameName != null) {
+                report.addError(describe(i) + ": more than one item is called '" + item.getName() + "'");
+            }
+            Item sameDescription = byDescription.put(item.getDescription(), item);
+            if (sameDescription != null) {
+                report.addWarning(describe(i) + ": '" + sameDescription.getName() + "' and '" + item.getName()
+                        + "' have the same description");
+            }
+        }
+    }
+
+    // Level by level breadth-first search, every level is expanded in parallel
+    private AtomicLongArray findReachableRooms(int start) {
+        AtomicLongArray visited = new AtomicLongArray((rooms.length + 63) / 64);
+        markVisited(visited, start);
+        int[] frontier = {start};
+        while (frontier.length > 0) {
+            IntStream level = Arrays.stream(frontier);
+            if (frontier.length >= PARALLEL_FRONTIER) {
+                level = level.parallel();
+            }
+            frontier = level
+                    .flatMap(i -> Arrays.stream(exits, i * DIRECTIONS.length, (i + 1) * DIRECTIONS.length))
+                    .filter(target -> target >= 0 && markVisited(visited, target))
+                    .toArray();
+        }
+        return visited;
+    }
+
+    // Required items have to lie in a reachable room and be takeable; hidden ones also need the flashlight
+    private void checkRequiredItems(AtomicLongArray reachable) {
+        int flashlight = REQUIRED_ITEMS.indexOf("flashlight");
+        AtomicIntegerArray found = new AtomicIntegerArray(REQUIRED_ITEMS.size());
+        AtomicIntegerArray foundHidden = new AtomicIntegerArray(REQUIRED_ITEMS.size());
+
+        IntStream.range(0, rooms.length).parallel().filter(i -> isSet(reachable, i)).forEach(i -> {
+            for (Item item : rooms[i].getItems()) {
+                int required = REQUIRED_ITEMS.indexOf(item.getName().toLowerCase());
+                if (required >= 0 && item.canBeTaken()) {
+                    (rooms[i].isHidden(item) ? foundHidden : found).set(required, 1);
+                }
+            }
+        });
+
+        boolean hasFlashlight = found.get(flashlight) == 1;
+        for (int i = 0; i < REQUIRED_ITEMS.size(); i++) {
+            if (found.get(i) == 1 || (foundHidden.get(i) == 1 && hasFlashlight)) {
+                continue;
+            }
+            if (foundHidden.get(i) == 1) {
+                report.addError("Required item '" + REQUIRED_ITEMS.get(i) + "' is hidden and there is no visible flashlight");
+            } else {
+                report.addError("Required item '" + REQUIRED_ITEMS.get(i) + "' can't be obtained");
+            }
+        }
+    }
+
+    private String describe(int i) {
+        return "Room '" + rooms[i].getName() + "' (#" + i + ")";
+    }
+
+    private static boolean markVisited(AtomicLongArray visited, int i) {
+        long bit = 1L << i;
+        while (true) {
+            long word = visited.get(i >>> 6);
+            if ((word & bit) != 0) {
+                return false;
+            }
+            if (visited.compareAndSet(i >>> 6, word, word | bit)) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean isSet(AtomicLongArray visited, int i) {
+        return (visited.get(i >>> 6) & (1L << i)) != 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package ch.noseryoung.blj.setup;
+
+import ch.noseryoung.blj.core.ItemSet;
+import ch.noseryoung.blj.core.Room;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One validated version of the world. The rooms here are a template that is never played;
+// every session gets its own copy, the immutable item sets are shared with the template.
+// Sessions acquire the version they play and release it when they leave; once the catalog
+// has replaced it and the last session is gone, its resources (a class loader) are closed.
+public class WorldVersion {
+    private final int number;
+    private final Room[] template;
+    private final Map<Room, Integer> indexByRoom = new IdentityHashMap<>();
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private final Map<Integer, Integer> roomByItem = new HashMap<>();
+    private final ItemSet itemIds;
+    private final AutoCloseable resources;
+    // One for every session on this version, plus one for the catalog while it is current
+    private final AtomicInteger users = new AtomicInteger(1);
+
+    WorldVersion(int number, Room[] template, AutoCloseable resources) {
+        this.number = number;
+        this.template = template;
+        this.resources = resources;
+        ItemSet ids = ItemSet.EMPTY;
+        for (int i = 0; i < template.length; i++) {
+            indexByRoom.put(template[i], i);
+            indexByName.put(template[i].getName(), i);
+            ItemSet roomItems = template[i].getItemState();
+            for (int id = roomItems.nextId(0); id >= 0; id = roomItems.nextId(id + 1)) {
+                ids = ids.with(id);
+                roomByItem.put(id, i);
+            }
+        }
+        this.itemIds = ids;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public int getRoomCount() {
+        return template.length;
+    }
+
+    // Index of the room with this name, -1 if the version has no such room
+    public int findRoom(String name) {
+        Integer index = indexByName.get(name);
+        return index == null ? -1 : index;
+    }
+
+    // Item state a room starts with in this version
+    public ItemSet getItemState(int room) {
+        return template[room].getItemState();
+    }
+
+    public ItemSet getHiddenState(int room) {
+        return template[room].getHiddenState();
+    }
+
+    public boolean containsItem(int itemId) {
+        return itemIds.contains(itemId);
+    }
+
+    // Index of the room this version puts the item in, -1 if it has no such item
+    public int findItemRoom(int itemId) {
+        Integer index = roomByItem.get(itemId);
+        return index == null ? -1 : index;
+    }
+
+    // False if the version was already closed, the caller has to take the catalog's current one
+    boolean acquire() {
+        while (true) {
+            int count = users.get();
+            if (count == 0) {
+                return false;
+            }
+            if (users.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        if (users.decrementAndGet() == 0 && resources != null) {
+            try {
+                resources.close();
+            } catch (Exception e) {
+                System.err.println("World version " + number + " could not be closed: " + e.getMessage());
+            }
+        }
+    }
+
+    public Room[] createRooms() {
+        Room[] rooms = new Room[template.length];
+        for (int i = 0; i < template.length; i++) {
+            Room room = template[i];
+            rooms[i] = new Room(room.getName(), room.getDescription(), null, null, null, null);
+            rooms[i].restoreState(room.getItemState(), room.getHiddenState());
+        }
+        for (int i = 0; i < template.length; i++) {
+            Room room = template[i];
+            rooms[i].setNorthRoom(copyOf(rooms, room.getNorthRoom()));
+            rooms[i].setSouthRoom(copyOf(rooms, room.getSouthRoom()));
+            rooms[i].setEastRoom(copyOf(rooms, room.getEastRoom()));
+            rooms[i].setWestRoom(copyOf(rooms, room.getWestRoom()));
+        }
+        return rooms;
+    }
+
+    private Room copyOf(Room[] rooms, Room exit) {
+        return exit == null ? null : rooms[indexByRoom.get(exit)];
+    }
+}
\ No newline at end of file
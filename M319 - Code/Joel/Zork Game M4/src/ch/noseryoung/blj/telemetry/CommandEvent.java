@@ -0,0 +1,37 @@
+package ch.noseryoung.blj.telemetry;
+
+import ch.noseryoung.blj.core.Room;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+// Base of the Flight Recorder events for the command pipeline. All of them are disabled
+// by default, then begin/finish are no-ops the JIT removes. Enable them in a .jfc settings
+// file or with: jcmd <pid> JFR.start settings=zork.jfc
+@Category({"Zork", "Command"})
+@Enabled(false)
+@StackTrace(false)
+public abstract class CommandEvent extends Event {
+    @Label("Session Id")
+    long sessionId;
+
+    @Label("Verb")
+    String verb;
+
+    @Label("Room")
+    @Description("Room the command started in")
+    String room;
+
+    public void finish(long sessionId, String verb, Room room) {
+        end();
+        if (shouldCommit()) {
+            this.sessionId = sessionId;
+            this.verb = verb;
+            this.room = room.getName();
+            commit();
+        }
+    }
+}
\ No newline at end of file
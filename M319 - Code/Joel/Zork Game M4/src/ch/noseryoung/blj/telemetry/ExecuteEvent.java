@@ -0,0 +1,11 @@
+package ch.noseryoung.blj.telemetry;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ch.noseryoung.blj.Execute")
+@Label("Execute Command (total)")
+@Description("The whole command after parsing. Resolve and Render events of the same command run inside it, so it is their total plus item behavior and rules")
+public class ExecuteEvent extends CommandEvent {
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package ch.noseryoung.blj.telemetry;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ch.noseryoung.blj.Parse")
+@Label("Parse Command")
+@Description("Splitting the input line into words")
+public class ParseEvent extends CommandEvent {
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package ch.noseryoung.blj.telemetry;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ch.noseryoung.blj.Render")
+@Label("Render Output")
+@Description("Writing room descriptions, listings and messages to the console")
+public class RenderEvent extends CommandEvent {
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package ch.noseryoung.blj.telemetry;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ch.noseryoung.blj.Resolve")
+@Label("Resolve Target")
+@Description("Looking up rooms and items by name")
+public class ResolveEvent extends CommandEvent {
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package ch.noseryoung.blj.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("ch.noseryoung.blj.WorldSetup")
+@Label("World Setup")
+@Description("Building the rooms or placing the items of a new world")
+@Category({"Zork", "Setup"})
+@Enabled(false)
+@StackTrace(false)
+public class WorldSetupEvent extends Event {
+    @Label("Step")
+    String step;
+
+    @Label("Room Count")
+    int roomCount;
+
+    public void finish(String step, int roomCount) {
+        end();
+        if (shouldCommit()) {
+            this.step = step;
+            this.roomCount = roomCount;
+            commit();
+        }
+    }
+}
\ No newline at end of file